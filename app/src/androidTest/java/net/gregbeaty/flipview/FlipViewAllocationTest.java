@@ -0,0 +1,235 @@
+package net.gregbeaty.flipview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Flips run every frame, so the scroll, position change, draw and settle paths must not allocate
+ * once the pages they need are bound. Each test warms a path up, then counts the objects
+ * allocated on the main thread while it runs for a number of frames.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlipViewAllocationTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int ITEM_COUNT = 20;
+    private static final int WARMUP_FRAMES = 50;
+    private static final int FRAMES = 200;
+    private static final long FRAME_INTERVAL_NANOS = 16666667L;
+
+    private FlipView mFlipView;
+    private Canvas mCanvas;
+    private int mFrame;
+    private final FrameRecorder mFrameRecorder = new FrameRecorder();
+    private long mFrameTimeNanos;
+    private int mSettleDirection = -1;
+
+    @Before
+    public void setUp() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView = new FlipView(InstrumentationRegistry.getTargetContext());
+                mFlipView.setLayoutManager(new FlipLayoutManager(FlipLayoutManager.VERTICAL));
+                mFlipView.setAdapter(new PageAdapter());
+                mFlipView.addOnPositionChangeListener(new FlipView.OnPositionChangeListener() {
+                    @Override
+                    public void onPositionChange(FlipView flipView, int position) {
+                    }
+                });
+
+                mFlipView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                mFlipView.layout(0, 0, WIDTH, HEIGHT);
+
+                mFlipView.scrollToPosition(ITEM_COUNT / 2);
+                mFlipView.layout(0, 0, WIDTH, HEIGHT);
+                mFlipView.scrollBy(0, 45);
+
+                mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+            }
+        });
+    }
+
+    @Test
+    public void scrollWithinPageDoesNotAllocate() throws Exception {
+        final int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView.scrollBy(0, mFrame % 2 == 0 ? 7 : -7);
+            }
+        });
+
+        assertEquals(0, allocations);
+    }
+
+    @Test
+    public void scrollAcrossPagesDoesNotAllocate() throws Exception {
+        final int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView.scrollBy(0, mFrame % 2 == 0 ? FlipLayoutManager.DISTANCE_PER_POSITION : -FlipLayoutManager.DISTANCE_PER_POSITION);
+            }
+        });
+
+        assertEquals(0, allocations);
+    }
+
+    @Test
+    public void drawFlipDoesNotAllocate() throws Exception {
+        final int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView.scrollBy(0, mFrame % 2 == 0 ? 7 : -7);
+                mFlipView.draw(mCanvas);
+            }
+        });
+
+        assertEquals(0, allocations);
+    }
+
+    @Test
+    public void snapshotFlipDoesNotAllocate() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView.setSnapshotFlipEnabled(true);
+            }
+        });
+
+        final int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                mFlipView.scrollBy(0, mFrame % 2 == 0 ? 7 : -7);
+                mFlipView.draw(mCanvas);
+            }
+        });
+
+        assertEquals(0, allocations);
+    }
+
+    @Test
+    public void settleDoesNotAllocate() throws Exception {
+        final FlipLayoutManager layoutManager = mFlipView.getLayoutManager();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layoutManager.setSettleFrameScheduler(mFrameRecorder);
+            }
+        });
+
+        // Each frame steps the settle animator; once a settle is over, the page is turned half
+        // way again, alternately forwards and backwards, and settles back.
+        final int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                if (mFrameRecorder.pending == null) {
+                    mFlipView.scrollBy(0, mSettleDirection * 45);
+                    mSettleDirection = -mSettleDirection;
+                    layoutManager.settleIfNeeded();
+                }
+
+                mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+                mFrameRecorder.runFrame(mFrameTimeNanos);
+            }
+        });
+
+        assertEquals(0, allocations);
+    }
+
+    /**
+     * Android has no other per-thread allocation count. The counters are deprecated as a
+     * profiling tool because they are approximate, but they still count every object allocated
+     * by the thread, which is all a zero check needs.
+     */
+    @SuppressWarnings("deprecation")
+    private int countAllocations(final Runnable frame) {
+        final int[] allocations = new int[1];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (mFrame = 0; mFrame < WARMUP_FRAMES; mFrame++) {
+                    frame.run();
+                }
+
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+
+                for (mFrame = 0; mFrame < FRAMES; mFrame++) {
+                    frame.run();
+                }
+
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+
+        return allocations[0];
+    }
+
+    /**
+     * Hands the settle animator's frame callback to the test instead of the Choreographer, so a
+     * settle runs one frame per call without waiting for vsync.
+     */
+    private static class FrameRecorder implements FlipSettleAnimator.FrameScheduler {
+        Choreographer.FrameCallback pending;
+
+        @Override
+        public void postFrameCallback(Choreographer.FrameCallback callback) {
+            pending = callback;
+        }
+
+        @Override
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            if (pending == callback) {
+                pending = null;
+            }
+        }
+
+        void runFrame(long frameTimeNanos) {
+            final Choreographer.FrameCallback callback = pending;
+            if (callback != null) {
+                pending = null;
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    private static class PageAdapter extends RecyclerView.Adapter<PageAdapter.ViewHolder> {
+        static class ViewHolder extends RecyclerView.ViewHolder {
+            ViewHolder(View itemView) {
+                super(itemView);
+            }
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new ViewHolder(new FrameLayout(parent.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            holder.itemView.setBackgroundColor(0xff000000 | (position * 0x101010));
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
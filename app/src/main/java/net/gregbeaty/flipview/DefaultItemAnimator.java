@@ -4,7 +4,18 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 
+import java.util.List;
+
 class DefaultItemAnimator extends RecyclerView.ItemAnimator {
+    /**
+     * Changed pages are always rebound in place, with the change payloads when there are any,
+     * rather than swapped for a new view holder that a change animation would cross-fade to.
+     */
+    @Override
+    public boolean canReuseUpdatedViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, @NonNull List<Object> payloads) {
+        return true;
+    }
+
     @Override
     public boolean animateDisappearance(@NonNull RecyclerView.ViewHolder viewHolder, @NonNull ItemHolderInfo preLayoutInfo, @Nullable ItemHolderInfo postLayoutInfo) {
         return false;
@@ -0,0 +1,204 @@
+package net.gregbeaty.flipview;
+
+import android.support.v4.os.TraceCompat;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flips several {@link FlipView}s in lockstep, e.g. a page and its translation side by side.
+ * <p>
+ * Any of the views can be dragged or flung, and the view that is scrolling leads. A view moved by
+ * the app with {@code scrollToPosition} or {@code smoothScrollToPosition} takes the lead too, so
+ * the other views follow it to that page. All views run
+ * on one frame callback. On each frame it runs the settle animations of the views, then moves
+ * every other view to the page and flip offset of the leader. That happens before the frame is
+ * laid out and drawn, so all views show the same flip in the same frame, and each is laid out and
+ * drawn at most once per frame.
+ * <p>
+ * Views that have a different number of items stop on their last page. Jump flips of the leader
+ * are mirrored as jumps between the same pages, and every view reports the scroll state of the
+ * leader while it follows. Views must be removed with {@link #removeFlipView(FlipView)} when they
+ * are no longer used.
+ */
+public final class FlipCoordinator implements Choreographer.FrameCallback {
+    private static final String TRACE_SYNC_TAG = "FlipView Sync";
+
+    // Posts the coordinator's own frame callback.
+    private final FlipSettleAnimator.FrameScheduler mFrameSource;
+    private final List<FlipView> mFlipViews = new ArrayList<>();
+    private final List<Choreographer.FrameCallback> mFrameCallbacks = new ArrayList<>();
+    private final List<Choreographer.FrameCallback> mRunningFrameCallbacks = new ArrayList<>();
+    private FlipView mLeader;
+    private boolean mFramePosted;
+    private boolean mSyncing;
+
+    private final FlipSettleAnimator.FrameScheduler mFrameScheduler = new FlipSettleAnimator.FrameScheduler() {
+        @Override
+        public void postFrameCallback(Choreographer.FrameCallback callback) {
+            if (!mFrameCallbacks.contains(callback)) {
+                mFrameCallbacks.add(callback);
+            }
+
+            scheduleFrame();
+        }
+
+        @Override
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            mFrameCallbacks.remove(callback);
+        }
+    };
+
+    public FlipCoordinator() {
+        this(FlipSettleAnimator.CHOREOGRAPHER_SCHEDULER);
+    }
+
+    FlipCoordinator(FlipSettleAnimator.FrameScheduler frameSource) {
+        mFrameSource = frameSource;
+    }
+
+    /**
+     * Adds a view that follows the flips of the others. It is moved to the page of the current
+     * leader on the next frame.
+     */
+    public void addFlipView(FlipView flipView) {
+        if (flipView.getFlipCoordinator() == this) {
+            return;
+        }
+
+        if (flipView.getFlipCoordinator() != null) {
+            throw new IllegalArgumentException("flipView is already added to another FlipCoordinator");
+        }
+
+        mFlipViews.add(flipView);
+        flipView.setFlipCoordinator(this);
+
+        if (mLeader == null) {
+            mLeader = flipView;
+        }
+
+        scheduleFrame();
+    }
+
+    public void removeFlipView(FlipView flipView) {
+        if (!mFlipViews.remove(flipView)) {
+            return;
+        }
+
+        flipView.setFlipCoordinator(null);
+
+        final FlipLayoutManager layoutManager = flipView.getLayoutManager();
+        if (layoutManager != null) {
+            layoutManager.endSync();
+        }
+
+        if (mLeader == flipView) {
+            mLeader = null;
+            if (!mFlipViews.isEmpty()) {
+                setLeader(mFlipViews.get(0));
+            }
+        }
+
+        if (mFlipViews.isEmpty() && mFramePosted) {
+            mFramePosted = false;
+            mFrameSource.removeFrameCallback(this);
+        }
+    }
+
+    FlipSettleAnimator.FrameScheduler getFrameScheduler() {
+        return mFrameScheduler;
+    }
+
+    /**
+     * Makes {@code flipView} the leader, e.g. when the app moves it to a page, and stops a settle
+     * still running on the previous leader where it is.
+     */
+    void setLeader(FlipView flipView) {
+        if (!mFlipViews.contains(flipView)) {
+            return;
+        }
+
+        if (flipView != mLeader) {
+            final FlipLayoutManager leaderLayoutManager = mLeader != null ? mLeader.getLayoutManager() : null;
+            if (leaderLayoutManager != null) {
+                leaderLayoutManager.holdSettle();
+            }
+
+            mLeader = flipView;
+
+            final FlipLayoutManager layoutManager = flipView.getLayoutManager();
+            if (layoutManager != null) {
+                layoutManager.endSync();
+            }
+        }
+
+        scheduleFrame();
+    }
+
+    void onFlipViewScrolled() {
+        if (!mSyncing) {
+            scheduleFrame();
+        }
+    }
+
+    private void scheduleFrame() {
+        if (mFramePosted || mFlipViews.isEmpty()) {
+            return;
+        }
+
+        mFramePosted = true;
+        mFrameSource.postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFramePosted = false;
+
+        TraceCompat.beginSection(TRACE_SYNC_TAG);
+
+        updateLeader();
+
+        mRunningFrameCallbacks.addAll(mFrameCallbacks);
+        mFrameCallbacks.clear();
+        for (int i = 0; i < mRunningFrameCallbacks.size(); i++) {
+            mRunningFrameCallbacks.get(i).doFrame(frameTimeNanos);
+        }
+        mRunningFrameCallbacks.clear();
+
+        syncToLeader();
+
+        TraceCompat.endSection();
+    }
+
+    /**
+     * A view that starts scrolling takes the lead.
+     */
+    private void updateLeader() {
+        for (int i = 0; i < mFlipViews.size(); i++) {
+            final FlipView flipView = mFlipViews.get(i);
+            final FlipLayoutManager layoutManager = flipView.getLayoutManager();
+            if (flipView != mLeader && layoutManager != null && layoutManager.isScrolling()) {
+                setLeader(flipView);
+                return;
+            }
+        }
+    }
+
+    private void syncToLeader() {
+        final FlipLayoutManager leaderLayoutManager = mLeader != null ? mLeader.getLayoutManager() : null;
+        if (leaderLayoutManager == null || leaderLayoutManager.getItemCount() == 0) {
+            return;
+        }
+
+        mSyncing = true;
+        for (int i = 0; i < mFlipViews.size(); i++) {
+            final FlipView flipView = mFlipViews.get(i);
+            final FlipLayoutManager layoutManager = flipView.getLayoutManager();
+            if (flipView != mLeader && layoutManager != null) {
+                layoutManager.syncTo(leaderLayoutManager);
+            }
+        }
+        mSyncing = false;
+    }
+}
@@ -0,0 +1,57 @@
+package net.gregbeaty.flipview;
+
+/**
+ * Exact conversions between the scroll distance of a flip and the page index plus in-page offset
+ * it is stored as. Distances are longs, so every page of an adapter with up to
+ * {@link Integer#MAX_VALUE} items has an exact distance.
+ * <p>
+ * The page for a distance is the nearest page, with a half-turned page belonging to the next one,
+ * so offsets are in the range [-90, 90).
+ */
+final class FlipDistance {
+    static final int PER_POSITION = 180;
+    private static final int HALF_POSITION = PER_POSITION / 2;
+
+    private FlipDistance() {
+    }
+
+    static long of(int position) {
+        return (long) position * PER_POSITION;
+    }
+
+    static long of(int position, int offset) {
+        return of(position) + offset;
+    }
+
+    static int toPosition(long distance) {
+        return (int) floorDiv(distance + HALF_POSITION, PER_POSITION);
+    }
+
+    static int toOffset(long distance) {
+        return (int) (distance - of(toPosition(distance)));
+    }
+
+    /**
+     * Returns the page a flip at the given distance is turning away from when moving forward,
+     * i.e. the page at or before the distance.
+     */
+    static int toFloorPosition(long distance) {
+        return (int) floorDiv(distance, PER_POSITION);
+    }
+
+    /**
+     * Returns the flip angle, in [0, 180), for a page offset.
+     */
+    static int toAngle(int offset) {
+        return offset < 0 ? offset + PER_POSITION : offset;
+    }
+
+    private static long floorDiv(long dividend, long divisor) {
+        final long quotient = dividend / divisor;
+        if ((dividend % divisor != 0) && ((dividend < 0) != (divisor < 0))) {
+            return quotient - 1;
+        }
+
+        return quotient;
+    }
+}
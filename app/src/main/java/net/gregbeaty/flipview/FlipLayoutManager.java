@@ -1,27 +1,98 @@
 package net.gregbeaty.flipview;
 
-import android.graphics.PointF;
+import android.graphics.Point;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.Nullable;
+import android.support.v4.os.TraceCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class FlipLayoutManager extends RecyclerView.LayoutManager {
     public static final int HORIZONTAL = OrientationHelper.HORIZONTAL;
     public static final int VERTICAL = OrientationHelper.VERTICAL;
-    public static final int DISTANCE_PER_POSITION = 180;
+    public static final int DISTANCE_PER_POSITION = FlipDistance.PER_POSITION;
     private final float INTERACTIVE_SCROLL_SPEED = 0.5f;
-    private Integer mDecoratedChildWidth;
-    private Integer mDecoratedChildHeight;
+    private static final int PREFETCH_DISTANCE = 2;
+    private static final int DEFAULT_OFFSCREEN_PAGE_LIMIT = 0;
+    private static final int DEFAULT_PAGE_CACHE_SIZE = 2;
+    private static final String TRACE_FILL_TAG = "FlipView Fill";
+    private static final int NO_SCROLL_STATE = -1;
+    private final SparseArray<Point> mPageSizes = new SparseArray<>();
+    private final Point mFixedPageSize = new Point();
+    private boolean mFixedPageSizeEnabled;
+    private boolean mPageSizeChanged;
+    private int mLastWidthSpec;
+    private int mLastHeightSpec;
     private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
     private int mPositionBeforeScroll = RecyclerView.NO_POSITION;
     private final int mOrientation;
     private int mScrollVector;
     private int mCurrentPosition;
-    private int mScrollDistance;
+    private int mPageOffset;
+    private float mScrollRemainder;
+    private int mOffscreenPageLimit = DEFAULT_OFFSCREEN_PAGE_LIMIT;
+    private int mPageCacheSize = DEFAULT_PAGE_CACHE_SIZE;
+    private boolean mPageCacheSizeSet;
+    private View[] mPageViews = new View[3];
+    private int mFirstPageViewPosition = RecyclerView.NO_POSITION;
+    private int mLastPageViewPosition = RecyclerView.NO_POSITION;
     private OnPositionChangeListener mPositionChangeListener;
+    private FlipMetricsTracker mMetricsTracker;
+    private OnFlipStateChangeListener mFlipStateListener;
+    private OnPagePrefetchListener mPagePrefetchListener;
+    private OnScrollRequestListener mScrollRequestListener;
+    private int mDispatchedFlipState = RecyclerView.SCROLL_STATE_IDLE;
+    private int mSyncedScrollState = NO_SCROLL_STATE;
+    private SavedState mPendingSavedState;
+    private final FlipSettleAnimator mSettleAnimator = new FlipSettleAnimator(new FlipSettleAnimator.Callback() {
+        @Override
+        public long onAnimationStep(long distance) {
+            return scrollToDistance(distance);
+        }
+
+        @Override
+        public void onAnimationEnd() {
+            onScrollStopped();
+            dispatchFlipStateChanged();
+        }
+    });
+    private RecyclerView mRecyclerView;
+    private RecyclerView.Recycler mRecycler;
+    private boolean mIdlePrefetchScheduled;
+    private boolean mJumpFlipEnabled;
+    private int mJumpSourcePosition = RecyclerView.NO_POSITION;
+    private int mJumpTargetPosition = RecyclerView.NO_POSITION;
+    private int mJumpDirection;
+    private int mPendingScrollPosition = RecyclerView.NO_POSITION;
+    private final Runnable mPendingScroll = new Runnable() {
+        @Override
+        public void run() {
+            final int position = mPendingScrollPosition;
+            mPendingScrollPosition = RecyclerView.NO_POSITION;
+
+            if (mRecyclerView != null && position != RecyclerView.NO_POSITION && position < getItemCount()) {
+                mRecyclerView.smoothScrollToPosition(position);
+            }
+        }
+    };
+    private final MessageQueue.IdleHandler mIdlePrefetch = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mIdlePrefetchScheduled = false;
+            prefetchAdjacentPages();
+            return false;
+        }
+    };
 
     public FlipLayoutManager(int orientation) {
         mOrientation = orientation;
@@ -58,30 +129,46 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager {
     }
 
     private int scrollBy(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (mDecoratedChildWidth == null || mDecoratedChildHeight == null) {
-            return 0;
-        }
-
         if (getChildCount() == 0) {
             return 0;
         }
 
+        // Interactive deltas are scaled down, and the fraction that doesn't make a whole unit of
+        // scroll distance is carried over to the next delta instead of being dropped.
         int modifiedDelta = delta;
+        float scrollRemainder = 0;
         if (isInteractiveScroll()) {
-            modifiedDelta = (int) (modifiedDelta > 0
-                    ? Math.max(modifiedDelta * INTERACTIVE_SCROLL_SPEED, 1)
-                    : Math.min(modifiedDelta * INTERACTIVE_SCROLL_SPEED, -1));
+            final float scaledDelta = delta * INTERACTIVE_SCROLL_SPEED + mScrollRemainder;
+            modifiedDelta = (int) scaledDelta;
+            scrollRemainder = scaledDelta - modifiedDelta;
         }
 
-        int desiredDistance = mScrollDistance + modifiedDelta;
+        final long scrollDistance = getLongScrollDistance();
+        long desiredDistance = scrollDistance + modifiedDelta;
+
+        if (isJumping()) {
+            final long jumpMinDistance = FlipDistance.of(Math.min(mJumpSourcePosition, mJumpSourcePosition + mJumpDirection));
+            desiredDistance = Math.max(jumpMinDistance, Math.min(desiredDistance, jumpMinDistance + DISTANCE_PER_POSITION));
+            modifiedDelta = (int) (desiredDistance - scrollDistance);
+
+            if (modifiedDelta == 0) {
+                mScrollRemainder = 0;
+                return 0;
+            }
+        }
 
-        int desiredPosition = findPositionByScrollDistance(desiredDistance);
-        if (desiredPosition < 0 || desiredPosition >= state.getItemCount()) {
+        // Same as checking that the nearest page is within the adapter, without converting a
+        // distance that may be out of range to a position first.
+        if (desiredDistance < -DISTANCE_PER_POSITION / 2
+                || desiredDistance >= FlipDistance.of(state.getItemCount() - 1) + DISTANCE_PER_POSITION / 2) {
+            mScrollRemainder = 0;
             return 0;
         }
 
+        final int desiredPosition = FlipDistance.toPosition(desiredDistance);
+
         if (mPositionBeforeScroll == RecyclerView.NO_POSITION) {
-            mPositionBeforeScroll = getCurrentPosition();
+            mPositionBeforeScroll = mCurrentPosition;
         }
 
         if (mScrollVector == 0 && modifiedDelta != 0) {
@@ -89,43 +176,65 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager {
         }
 
         final int maxOverScrollDistance = 70;
-        int minDistance = 0;
-        int maxDistance = ((getItemCount() - 1) * DISTANCE_PER_POSITION);
+        long minDistance = 0;
+        long maxDistance = FlipDistance.of(getItemCount() - 1);
 
         if (desiredDistance < minDistance - maxOverScrollDistance || desiredDistance > maxDistance + maxOverScrollDistance) {
+            mScrollRemainder = 0;
             return 0;
         }
 
         if (isInteractiveScroll()) {
-            minDistance = (mPositionBeforeScroll - 1) * DISTANCE_PER_POSITION;
+            minDistance = FlipDistance.of(mPositionBeforeScroll) - DISTANCE_PER_POSITION;
             if (mScrollVector > 0) {
-                minDistance = mPositionBeforeScroll * DISTANCE_PER_POSITION;
+                minDistance = FlipDistance.of(mPositionBeforeScroll);
             }
 
-            maxDistance = (mPositionBeforeScroll + 1) * DISTANCE_PER_POSITION;
+            maxDistance = FlipDistance.of(mPositionBeforeScroll) + DISTANCE_PER_POSITION;
             if (mScrollVector < 0) {
-                maxDistance = mPositionBeforeScroll * DISTANCE_PER_POSITION;
+                maxDistance = FlipDistance.of(mPositionBeforeScroll);
             }
 
             if (desiredDistance < minDistance || desiredDistance > maxDistance) {
+                mScrollRemainder = 0;
                 return 0;
             }
         }
 
-        mScrollDistance = desiredDistance;
+        mPageOffset = FlipDistance.toOffset(desiredDistance);
+        mScrollRemainder = scrollRemainder;
 
         int oldPosition = mCurrentPosition;
         mCurrentPosition = desiredPosition;
-        notifyOfPositionChange(oldPosition, mCurrentPosition);
+        notifyOfPositionChange(toAdapterPosition(oldPosition), toAdapterPosition(mCurrentPosition));
+
+        // Most drag deltas move the page by less than a degree and leave the set of attached pages
+        // as it is, in which case there is nothing to lay out.
+        final boolean pageWindowChanged = mPageSizeChanged
+                || getFirstWindowPosition() != mFirstPageViewPosition
+                || getLastWindowPosition(state.getItemCount()) != mLastPageViewPosition;
+        if (pageWindowChanged) {
+            fill(recycler, state);
+        } else if (oldPosition != mCurrentPosition) {
+            updateCurrentPage();
+        }
 
-        fill(recycler, state);
-        return modifiedDelta;
+        // A programmatic scroll leaves RecyclerView idle, so a page turned by it only shows up as
+        // a flip through the layout manager's own state.
+        dispatchFlipStateChanged();
+
+        // The whole input delta went into the scroll distance or the remainder, so report all of it
+        // as consumed rather than handing the scaled-away part to nested scrolling parents.
+        return isInteractiveScroll() ? delta : modifiedDelta;
     }
 
     @Override
     public void onMeasure(final RecyclerView.Recycler recycler, final RecyclerView.State state, final int widthSpec, final int heightSpec) {
-        mDecoratedChildWidth = null;
-        mDecoratedChildHeight = null;
+        if (widthSpec != mLastWidthSpec || heightSpec != mLastHeightSpec) {
+            mLastWidthSpec = widthSpec;
+            mLastHeightSpec = heightSpec;
+            clearPageSizes();
+        }
 
         super.onMeasure(recycler, state, widthSpec, heightSpec);
     }
@@ -134,7 +243,189 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager {
     public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
         super.onAdapterChanged(oldAdapter, newAdapter);
 
-        removeAllViews();
+        // RecyclerView has already recycled the views unless the adapter was swapped in keeping
+        // them, in which case they are invalid and get rebound by the next layout.
+        clearPageViews();
+        clearPageSizes();
+    }
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        mPendingScrollPosition = positionAfterInsert(mPendingScrollPosition, positionStart, itemCount);
+
+        if (isJumping()) {
+            offsetJump(positionAfterInsert(mJumpSourcePosition, positionStart, itemCount),
+                    positionAfterInsert(mJumpTargetPosition, positionStart, itemCount));
+            return;
+        }
+
+        // Items inserted into an empty adapter come before a current position that was only a
+        // default, the first of them is the page to open on.
+        if (hasLaidOutCurrentPage() && getItemCount() > itemCount) {
+            offsetCurrentPosition(positionAfterInsert(mCurrentPosition, positionStart, itemCount) - mCurrentPosition);
+        }
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        mPendingScrollPosition = positionAfterRemove(mPendingScrollPosition, positionStart, itemCount);
+
+        if (isJumping()) {
+            // The page after the removed range takes the place of a removed source page.
+            final int sourcePosition = positionAfterRemove(mJumpSourcePosition, positionStart, itemCount);
+            offsetJump(sourcePosition != RecyclerView.NO_POSITION ? sourcePosition : positionStart,
+                    positionAfterRemove(mJumpTargetPosition, positionStart, itemCount));
+            return;
+        }
+
+        if (!hasLaidOutCurrentPage() || positionStart > mCurrentPosition) {
+            return;
+        }
+
+        if (positionStart + itemCount <= mCurrentPosition) {
+            offsetCurrentPosition(-itemCount);
+            return;
+        }
+
+        // The current page is gone, the page after the removed range takes its place.
+        stopFlip();
+        offsetCurrentPosition(positionStart - mCurrentPosition);
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        mPendingScrollPosition = positionAfterMove(mPendingScrollPosition, from, to, itemCount);
+
+        if (isJumping()) {
+            offsetJump(positionAfterMove(mJumpSourcePosition, from, to, itemCount),
+                    positionAfterMove(mJumpTargetPosition, from, to, itemCount));
+            return;
+        }
+
+        if (hasLaidOutCurrentPage()) {
+            offsetCurrentPosition(positionAfterMove(mCurrentPosition, from, to, itemCount) - mCurrentPosition);
+        }
+    }
+
+    @Override
+    public void onItemsChanged(RecyclerView recyclerView) {
+        // The pages may come back with other content and sizes.
+        clearPageSizes();
+
+        // After a data set change only the positions are known, not where the items went.
+        if (isJumping()) {
+            endJump(mJumpSourcePosition, mJumpTargetPosition < getItemCount() ? mJumpTargetPosition : RecyclerView.NO_POSITION);
+        }
+    }
+
+    /**
+     * Until a layout has shown it, the current position is only where the first layout starts and
+     * doesn't belong to any item, so adapter changes leave it alone.
+     */
+    private boolean hasLaidOutCurrentPage() {
+        return mCurrentPosition != RecyclerView.NO_POSITION && getChildCount() > 0;
+    }
+
+    private static int positionAfterInsert(int position, int positionStart, int itemCount) {
+        if (position == RecyclerView.NO_POSITION || position < positionStart) {
+            return position;
+        }
+
+        return position + itemCount;
+    }
+
+    /**
+     * Returns {@link RecyclerView#NO_POSITION} for a position in the removed range.
+     */
+    private static int positionAfterRemove(int position, int positionStart, int itemCount) {
+        if (position == RecyclerView.NO_POSITION || position < positionStart) {
+            return position;
+        }
+
+        if (position < positionStart + itemCount) {
+            return RecyclerView.NO_POSITION;
+        }
+
+        return position - itemCount;
+    }
+
+    private static int positionAfterMove(int position, int from, int to, int itemCount) {
+        if (position == RecyclerView.NO_POSITION) {
+            return position;
+        }
+
+        if (position >= from && position < from + itemCount) {
+            return position + to - from;
+        } else if (from < to && position >= from + itemCount && position < to + itemCount) {
+            return position - itemCount;
+        } else if (to < from && position >= to && position < from) {
+            return position + itemCount;
+        }
+
+        return position;
+    }
+
+    /**
+     * Moves the current page to follow its item after an adapter change, keeping the flip angle.
+     * A running settle moves along with it.
+     */
+    private void offsetCurrentPosition(int offset) {
+        if (offset == 0) {
+            return;
+        }
+
+        final int oldPosition = mCurrentPosition;
+        mCurrentPosition += offset;
+
+        if (mPositionBeforeScroll != RecyclerView.NO_POSITION) {
+            mPositionBeforeScroll += offset;
+        }
+
+        mSettleAnimator.offsetBy(FlipDistance.of(offset));
+        notifyOfPositionChange(oldPosition, mCurrentPosition);
+    }
+
+    private void stopFlip() {
+        mSettleAnimator.cancel();
+        mPageOffset = 0;
+        mScrollRemainder = 0;
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+        dispatchFlipStateChanged();
+    }
+
+    @Override
+    public void onAttachedToWindow(RecyclerView view) {
+        super.onAttachedToWindow(view);
+
+        mRecyclerView = view;
+
+        if (mPageCacheSizeSet) {
+            mRecyclerView.setItemViewCacheSize(mPageCacheSize);
+        }
+    }
+
+    @Override
+    public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        super.onDetachedFromWindow(view, recycler);
+
+        cancelIdlePrefetch();
+        stopSettle();
+        mRecyclerView = null;
+        mRecycler = null;
+    }
+
+    /**
+     * RecyclerView recycles every page through here when the adapter is swapped, so hidden pages
+     * get their own state back before they go to the pool.
+     */
+    @Override
+    public void removeAndRecycleAllViews(RecyclerView.Recycler recycler) {
+        for (int i = 0; i < getChildCount(); i++) {
+            restorePage(getChildAt(i));
+        }
+
+        super.removeAndRecycleAllViews(recycler);
     }
 
     @Override
@@ -143,19 +434,26 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager {
             return;
         }
 
+        mRecycler = recycler;
+
         if (state.getItemCount() == 0) {
             removeAndRecycleAllViews(recycler);
+            clearPageViews();
+            clearJump();
             setCurrentPosition(RecyclerView.NO_POSITION, false);
             return;
         }
 
-        if (mDecoratedChildWidth == null || mDecoratedChildHeight == null) {
-            View view = recycler.getViewForPosition(0);
-            addView(view);
-            measureChildWithMargins(view, 0, 0);
-            mDecoratedChildWidth = getDecoratedMeasuredWidth(view);
-            mDecoratedChildHeight = getDecoratedMeasuredHeight(view);
-            removeAndRecycleView(view, recycler);
+        if (requiresFullRelayout()) {
+            detachAndScrapAttachedViews(recycler);
+        } else {
+            rebindChangedPages(recycler);
+        }
+
+        final boolean restored = mPendingSavedState != null;
+        if (restored) {
+            restoreState(mPendingSavedState, state.getItemCount());
+            mPendingSavedState = null;
         }
 
         if (mCurrentPosition == RecyclerView.NO_POSITION) {
@@ -166,173 +464,1224 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager {
             setCurrentPosition(state.getItemCount() - 1, false);
         }
 
-        detachAndScrapAttachedViews(recycler);
-
         fill(recycler, state);
+
+        if (restored) {
+            settleIfNeeded();
+        }
+    }
+
+    /**
+     * Inserts, removes and moves keep the attached pages: the current position already follows
+     * its item, fill() drops removed pages and those that left the window, and every page shares
+     * the same bounds. Only invalid views, after a data set change, scrap every page.
+     */
+    private boolean requiresFullRelayout() {
+        for (int i = 0; i < getChildCount(); i++) {
+            final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) getChildAt(i).getLayoutParams();
+            if (params.isViewInvalid()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Rebinds the attached pages whose items changed, leaving the other pages alone. The item
+     * animator lets RecyclerView reuse a changed view holder, so fetching the scrapped page again
+     * returns the same view bound with the change payloads, and adding it back at its index
+     * reattaches it without a remove. fill() lays it out again only if the bind requested it.
+     */
+    private void rebindChangedPages(RecyclerView.Recycler recycler) {
+        for (int i = 0; i < getChildCount(); i++) {
+            final View view = getChildAt(i);
+            final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) view.getLayoutParams();
+            if (!params.viewNeedsUpdate() || params.isItemRemoved()) {
+                continue;
+            }
+
+            detachAndScrapView(view, recycler);
+            addView(recycler.getViewForPosition(params.getViewLayoutPosition()), i);
+        }
     }
 
     private void fill(RecyclerView.Recycler recycler, RecyclerView.State state) {
-        detachAndScrapAttachedViews(recycler);
+        TraceCompat.beginSection(TRACE_FILL_TAG);
+        final long fillStart = mMetricsTracker != null ? mMetricsTracker.beginSection() : 0;
+
+        final int firstPosition = getFirstWindowPosition();
+        final int lastPosition = getLastWindowPosition(state.getItemCount());
+
+        final boolean sizeChanged = mPageSizeChanged;
+        mPageSizeChanged = false;
+
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            final View view = getChildAt(i);
+            final int position = toLayoutPosition(getPosition(view));
+            if (isItemRemoved(view) || position < firstPosition || position > lastPosition) {
+                onPageRemoved(view);
+                removeAndRecycleView(view, recycler);
+                continue;
+            }
 
-        boolean layoutOnlyCurrentPosition = !isScrolling() && !requiresSettling();
+            if (sizeChanged || view.isLayoutRequested()) {
+                layoutView(view);
+            }
+        }
 
-        if (!layoutOnlyCurrentPosition) {
-            addView(mCurrentPosition - 1, recycler, state);
+        for (int position = firstPosition; position <= lastPosition; position++) {
+            if (findViewByPosition(toAdapterPosition(position)) == null) {
+                addView(position, recycler, state);
+            }
         }
 
-        addView(mCurrentPosition, recycler, state);
+        recycleScrap(recycler);
+        updatePageViews(firstPosition, lastPosition);
+        updateCurrentPage();
 
-        if (!layoutOnlyCurrentPosition) {
-            addView(mCurrentPosition + 1, recycler, state);
+        if (mMetricsTracker != null) {
+            mMetricsTracker.endFillSection(fillStart);
         }
 
-        recycler.clear();
+        TraceCompat.endSection();
     }
 
-    private void addView(int position, RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (position == RecyclerView.NO_POSITION) {
-            return;
+    private static boolean isItemRemoved(View view) {
+        return ((RecyclerView.LayoutParams) view.getLayoutParams()).isItemRemoved();
+    }
+
+    private int getFirstWindowPosition() {
+        if (isJumping()) {
+            return Math.min(mJumpSourcePosition, mJumpSourcePosition + mJumpDirection);
         }
 
-        if (position >= state.getItemCount()) {
-            return;
+        return Math.max(mCurrentPosition - getPageLimit(), 0);
+    }
+
+    private int getLastWindowPosition(int itemCount) {
+        if (isJumping()) {
+            return getFirstWindowPosition() + 1;
         }
 
-        View view = recycler.getViewForPosition(position);
-        addView(view);
-        measureChildWithMargins(view, 0, 0);
-        layoutDecorated(view, 0, 0, mDecoratedChildWidth, mDecoratedChildHeight);
+        // Compared before adding, so a window next to the last page of the largest adapter doesn't
+        // overflow.
+        final int pageLimit = getPageLimit();
+        return mCurrentPosition > itemCount - 1 - pageLimit ? itemCount - 1 : mCurrentPosition + pageLimit;
     }
 
-    public int getAngle() {
-        return getAngle(mScrollDistance);
+    private int getPageLimit() {
+        if (isScrolling() || requiresSettling()) {
+            return Math.max(mOffscreenPageLimit, 1);
+        }
+
+        return mOffscreenPageLimit;
     }
 
-    private int getAngle(int distance) {
-        float currentDistance = distance % DISTANCE_PER_POSITION;
+    /**
+     * Offscreen pages share the bounds of the current page, so the current page has to be the last
+     * child to be drawn on top. Pages are added behind it, so it only has to be moved when another
+     * page becomes the current one. Offscreen pages are hidden from accessibility services, give up
+     * focus and, unless a flip is drawing them, are made invisible so a touch the current page
+     * doesn't consume can't fall through to them. The page's own visibility and accessibility
+     * importance are kept and restored once it is the current page again or leaves the window.
+     */
+    private void updateCurrentPage() {
+        final View currentView = getPageView(0);
+        if (currentView != null && getChildAt(getChildCount() - 1) != currentView) {
+            detachView(currentView);
+            attachView(currentView);
+        }
+
+        final boolean flipping = getFlipState() != RecyclerView.SCROLL_STATE_IDLE;
+        for (int i = 0; i < getChildCount(); i++) {
+            final View view = getChildAt(i);
+            if (view == currentView) {
+                restorePage(view);
+                continue;
+            }
+
+            hidePage(view, flipping);
+            if (view.hasFocus()) {
+                view.clearFocus();
+            }
+        }
+    }
 
-        if (currentDistance < 0) {
-            currentDistance += DISTANCE_PER_POSITION;
+    private void hidePage(View view, boolean flipping) {
+        PageState pageState = (PageState) view.getTag(R.id.flip_view_page_state);
+        if (pageState == null) {
+            pageState = new PageState(view.getVisibility(), ViewCompat.getImportantForAccessibility(view));
+            view.setTag(R.id.flip_view_page_state, pageState);
         }
 
-        return Math.round((currentDistance / DISTANCE_PER_POSITION) * DISTANCE_PER_POSITION);
+        ViewCompat.setImportantForAccessibility(view, ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
+        if (flipping || pageState.visibility != View.VISIBLE) {
+            view.setVisibility(pageState.visibility);
+        } else {
+            view.setVisibility(View.INVISIBLE);
+        }
     }
 
-    private int findPositionByScrollDistance(float distance) {
-        return Math.round(distance / DISTANCE_PER_POSITION);
+    private void restorePage(View view) {
+        final PageState pageState = (PageState) view.getTag(R.id.flip_view_page_state);
+        if (pageState == null) {
+            return;
+        }
+
+        view.setTag(R.id.flip_view_page_state, null);
+        ViewCompat.setImportantForAccessibility(view, pageState.importantForAccessibility);
+        view.setVisibility(pageState.visibility);
     }
 
-    public int getCurrentPosition() {
-        if (getItemCount() == 0) {
-            return RecyclerView.NO_POSITION;
+    /**
+     * Only the current page takes part in focus search.
+     */
+    @Override
+    public boolean onAddFocusables(RecyclerView recyclerView, ArrayList<View> views, int direction, int focusableMode) {
+        final View currentView = getPageView(0);
+        if (currentView == null) {
+            return false;
         }
 
-        return mCurrentPosition;
+        currentView.addFocusables(views, direction, focusableMode);
+        return true;
     }
 
-    void setCurrentPosition(int position, boolean requestLayout) {
-        if (position == mCurrentPosition) {
+    private void updatePageViews(int firstPosition, int lastPosition) {
+        clearPageViews();
+        mFirstPageViewPosition = firstPosition;
+        mLastPageViewPosition = lastPosition;
+
+        for (int i = 0; i < getChildCount(); i++) {
+            final View view = getChildAt(i);
+            final int index = toLayoutPosition(getPosition(view)) - firstPosition;
+            if (index >= 0 && index < mPageViews.length) {
+                mPageViews[index] = view;
+            }
+        }
+    }
+
+    private void clearPageViews() {
+        for (int i = 0; i < mPageViews.length; i++) {
+            mPageViews[i] = null;
+        }
+
+        mFirstPageViewPosition = RecyclerView.NO_POSITION;
+        mLastPageViewPosition = RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * Returns the attached page at the given offset from the current page, e.g. -1 for the page
+     * revealed when flipping backwards. During a jump flip the page at the jump's offset is the
+     * jump target rather than the adapter neighbour.
+     */
+    @Nullable
+    View getPageView(int offset) {
+        if (mFirstPageViewPosition == RecyclerView.NO_POSITION) {
+            return null;
+        }
+
+        final int index = mCurrentPosition + offset - mFirstPageViewPosition;
+        if (index < 0 || index >= mPageViews.length) {
+            return null;
+        }
+
+        return mPageViews[index];
+    }
+
+    private void recycleScrap(RecyclerView.Recycler recycler) {
+        final List<RecyclerView.ViewHolder> scrapList = recycler.getScrapList();
+        for (int i = scrapList.size() - 1; i >= 0; i--) {
+            final View view = scrapList.get(i).itemView;
+            onPageRemoved(view);
+            recycler.recycleView(view);
+        }
+    }
+
+    private void addView(int position, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (position == RecyclerView.NO_POSITION) {
             return;
         }
 
-        int oldPosition = mCurrentPosition;
-        mCurrentPosition = position;
+        if (position >= state.getItemCount()) {
+            return;
+        }
 
-        if (mScrollDistance < 0) {
-            mScrollDistance = 0;
+        View view = recycler.getViewForPosition(toAdapterPosition(position));
+        onPageObtained(view);
+        if (position == mCurrentPosition) {
+            addView(view);
         } else {
-            mScrollDistance = DISTANCE_PER_POSITION * position;
+            addView(view, 0);
         }
+        layoutView(view);
+    }
 
-        if (requestLayout) {
-            removeAllViews();
-            requestLayout();
+    private void layoutView(View view) {
+        measureChildWithMargins(view, 0, 0);
+
+        final Point pageSize = getPageSize(view);
+        layoutDecorated(view, 0, 0, pageSize.x, pageSize.y);
+    }
+
+    /**
+     * Pages are sized from the first page of each view type that gets laid out, or from the
+     * RecyclerView itself in fixed page size mode, so sizing never binds a page of its own.
+     */
+    private Point getPageSize(View view) {
+        if (mFixedPageSizeEnabled) {
+            mFixedPageSize.set(getWidth() - getPaddingLeft() - getPaddingRight(), getHeight() - getPaddingTop() - getPaddingBottom());
+            return mFixedPageSize;
         }
 
-        notifyOfPositionChange(oldPosition, mCurrentPosition);
+        final int viewType = getItemViewType(view);
+        Point pageSize = mPageSizes.get(viewType);
+        if (pageSize == null) {
+            pageSize = new Point(getDecoratedMeasuredWidth(view), getDecoratedMeasuredHeight(view));
+            mPageSizes.put(viewType, pageSize);
+        }
+
+        return pageSize;
     }
 
-    public int getScrollDistance() {
-        return mScrollDistance;
+    /**
+     * Drops the page size of every view type so the next layout measures them again.
+     */
+    private void clearPageSizes() {
+        mPageSizes.clear();
+        mPageSizeChanged = true;
     }
 
-    @Override
-    public void onScrollStateChanged(int state) {
-        if (mScrollState != RecyclerView.SCROLL_STATE_IDLE && state == RecyclerView.SCROLL_STATE_IDLE) {
-            requestLayout();
+    /**
+     * When enabled, every page takes the size of the RecyclerView minus its padding instead of
+     * the measured size of the first page of its view type.
+     */
+    public void setFixedPageSizeEnabled(boolean enabled) {
+        if (mFixedPageSizeEnabled == enabled) {
+            return;
         }
 
-        mScrollState = state;
+        mFixedPageSizeEnabled = enabled;
+        clearPageSizes();
+        requestLayout();
+    }
+
+    public boolean isFixedPageSizeEnabled() {
+        return mFixedPageSizeEnabled;
+    }
 
-        if (!isScrolling()) {
-            mScrollVector = 0;
-            mPositionBeforeScroll = RecyclerView.NO_POSITION;
+    @Override
+    public void onLayoutCompleted(RecyclerView.State state) {
+        super.onLayoutCompleted(state);
+
+        if (!isScrolling() && state.getItemCount() > 1) {
+            scheduleIdlePrefetch();
         }
     }
 
     @Override
-    public void smoothScrollToPosition(RecyclerView recyclerView, final RecyclerView.State state, final int position) {
-        final FlipSmoothScroller smoothScroller = new FlipSmoothScroller(recyclerView.getContext()) {
-            @Nullable
-            @Override
-            public PointF computeScrollVectorForPosition(int targetPosition) {
-                if (position < 0) {
-                    throw new IllegalArgumentException("position can't be less then 0. position is : " + position);
-                }
-                if (position >= state.getItemCount()) {
-                    throw new IllegalArgumentException("position can't be great then adapter items count. position is : " + position);
-                }
-
-                if (getChildCount() == 0) {
-                    return null;
-                }
-
-                final int firstChildPos = getPosition(getChildAt(0));
-                final int direction = targetPosition < firstChildPos ? -1 : 1;
-                if (mOrientation == HORIZONTAL) {
-                    return new PointF(direction, 0);
-                } else {
-                    return new PointF(0, direction);
-                }
-            }
-        };
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        if (getChildCount() == 0 || mCurrentPosition == RecyclerView.NO_POSITION || isJumping()) {
+            return;
+        }
+
+        final int delta = mOrientation == HORIZONTAL ? dx : dy;
+        int direction = mScrollVector;
+        if (direction == 0 && delta != 0) {
+            direction = delta > 0 ? 1 : -1;
+        }
+
+        if (direction == 0) {
+            addPrefetchPosition(mCurrentPosition - 1, state.getItemCount(), layoutPrefetchRegistry);
+            addPrefetchPosition((long) mCurrentPosition + 1, state.getItemCount(), layoutPrefetchRegistry);
+            return;
+        }
 
-        smoothScroller.setTargetPosition(position);
-        startSmoothScroll(smoothScroller);
+        for (int i = 1; i <= PREFETCH_DISTANCE; i++) {
+            addPrefetchPosition((long) mCurrentPosition + direction * i, state.getItemCount(), layoutPrefetchRegistry);
+        }
     }
 
     @Override
-    public void scrollToPosition(int position) {
-        setCurrentPosition(position, true);
+    public void collectInitialPrefetchPositions(int adapterItemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        final int position = mCurrentPosition == RecyclerView.NO_POSITION ? 0 : mCurrentPosition;
+
+        addPrefetchPosition(position, adapterItemCount, layoutPrefetchRegistry);
+        addPrefetchPosition(position - 1, adapterItemCount, layoutPrefetchRegistry);
+        addPrefetchPosition((long) position + 1, adapterItemCount, layoutPrefetchRegistry);
     }
 
-    void setPositionChangeListener(OnPositionChangeListener onPositionChangeListener) {
-        mPositionChangeListener = onPositionChangeListener;
+    private void addPrefetchPosition(long position, int itemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        if (position < 0 || position >= itemCount) {
+            return;
+        }
+
+        final long distance = Math.abs(FlipDistance.of((int) position) - getLongScrollDistance());
+        layoutPrefetchRegistry.addPosition((int) position, (int) Math.min(distance, Integer.MAX_VALUE));
     }
 
-    public boolean isScrolling() {
-        return getScrollState() != RecyclerView.SCROLL_STATE_IDLE;
+    private void scheduleIdlePrefetch() {
+        if (mIdlePrefetchScheduled || mRecyclerView == null || !isItemPrefetchEnabled()) {
+            return;
+        }
+
+        mIdlePrefetchScheduled = true;
+        Looper.myQueue().addIdleHandler(mIdlePrefetch);
     }
 
-    public boolean isInteractiveScroll() {
-        return getScrollState() == RecyclerView.SCROLL_STATE_DRAGGING;
+    private void cancelIdlePrefetch() {
+        if (!mIdlePrefetchScheduled) {
+            return;
+        }
+
+        mIdlePrefetchScheduled = false;
+        Looper.myQueue().removeIdleHandler(mIdlePrefetch);
     }
 
-    public boolean requiresSettling() {
-        return getScrollDistance() % DISTANCE_PER_POSITION != 0;
+    /**
+     * Binds the pages on either side of the current one while the UI thread is idle and hands them
+     * back to the recycler's view cache, so the first frame of the next flip picks them up without
+     * creating or binding anything.
+     */
+    private void prefetchAdjacentPages() {
+        if (mRecyclerView == null || mRecycler == null || isScrolling() || isJumping() || mRecyclerView.hasPendingAdapterUpdates()) {
+            return;
+        }
+
+        prefetchPage((long) mCurrentPosition - mOffscreenPageLimit - 1);
+        prefetchPage((long) mCurrentPosition + mOffscreenPageLimit + 1);
     }
 
-    int getScrollState() {
-        return mScrollState;
+    private void prefetchPage(long pagePosition) {
+        if (pagePosition < 0 || pagePosition >= getItemCount()) {
+            return;
+        }
+
+        final int position = (int) pagePosition;
+        if (findViewByPosition(position) != null) {
+            return;
+        }
+
+        final View view = mRecycler.getViewForPosition(position);
+        onPageObtained(view);
+
+        if (mPagePrefetchListener != null) {
+            // Laid out like an attached page, so the listener can draw it.
+            layoutView(view);
+            mPagePrefetchListener.onPagePrefetched(view, position);
+        }
+
+        onPageRemoved(view);
+        mRecycler.recycleView(view);
     }
 
-    private void notifyOfPositionChange(int oldPosition, int newPosition) {
-        if (oldPosition != newPosition && mPositionChangeListener != null) {
-            mPositionChangeListener.onPositionChange(this, newPosition);
+    private void onPageObtained(View view) {
+        if (mMetricsTracker != null) {
+            mMetricsTracker.onPageObtained(view);
         }
     }
 
-    public int getOrientation() {
-        return mOrientation;
+    private void onPageRemoved(View view) {
+        restorePage(view);
+
+        if (mMetricsTracker != null) {
+            mMetricsTracker.onPageRemoved(view);
+        }
+    }
+
+    public int getAngle() {
+        return FlipDistance.toAngle(mPageOffset);
+    }
+
+    /**
+     * Returns the flip angle including the fraction of a degree that interactive scrolling has
+     * accumulated but not yet applied to {@link #getLongScrollDistance()}. This is the angle pages are
+     * drawn at.
+     */
+    public float getExactAngle() {
+        float angle = FlipDistance.toAngle(mPageOffset) + mScrollRemainder;
+        if (angle < 0) {
+            angle += DISTANCE_PER_POSITION;
+        } else if (angle >= DISTANCE_PER_POSITION) {
+            angle -= DISTANCE_PER_POSITION;
+        }
+
+        // A page turned half way already belongs to the next page, so the remainder can't take the
+        // angle back below the half turn without the current page changing too.
+        if (mPageOffset == -DISTANCE_PER_POSITION / 2 && angle < DISTANCE_PER_POSITION / 2) {
+            angle = DISTANCE_PER_POSITION / 2;
+        }
+
+        return angle;
+    }
+
+    public int getCurrentPosition() {
+        if (getItemCount() == 0) {
+            return RecyclerView.NO_POSITION;
+        }
+
+        return toAdapterPosition(mCurrentPosition);
+    }
+
+    void setCurrentPosition(int position, boolean requestLayout) {
+        if (position == mCurrentPosition) {
+            return;
+        }
+
+        int oldPosition = mCurrentPosition;
+        mCurrentPosition = position;
+        mScrollRemainder = 0;
+
+        mPageOffset = 0;
+
+        if (requestLayout) {
+            // The next layout recycles the pages that left the window and keeps the others.
+            clearPageViews();
+            requestLayout();
+        }
+
+        notifyOfPositionChange(oldPosition, mCurrentPosition);
+    }
+
+    /**
+     * Returns the scroll distance of the flip, {@link #DISTANCE_PER_POSITION} per page, clamped to
+     * the int range. Adapters with more than about 12 million pages go past it; use
+     * {@link #getLongScrollDistance()} for those.
+     */
+    public int getScrollDistance() {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(getLongScrollDistance(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the scroll distance of the flip, {@link #DISTANCE_PER_POSITION} per page. It is
+     * stored as the current page and an offset within it, and is exact for any item count.
+     */
+    public long getLongScrollDistance() {
+        return FlipDistance.of(mCurrentPosition, mPageOffset);
+    }
+
+    /**
+     * When enabled, {@link RecyclerView#smoothScrollToPosition(int)} to a page that isn't adjacent
+     * to the current one flips once, straight from the current page to the target page, instead of
+     * scrolling through every page in between.
+     */
+    public void setJumpFlipEnabled(boolean enabled) {
+        mJumpFlipEnabled = enabled;
+    }
+
+    public boolean isJumpFlipEnabled() {
+        return mJumpFlipEnabled;
+    }
+
+    boolean isJumping() {
+        return mJumpTargetPosition != RecyclerView.NO_POSITION;
+    }
+
+    private void startJump(int targetPosition) {
+        mJumpSourcePosition = mCurrentPosition;
+        mJumpTargetPosition = targetPosition;
+        mJumpDirection = targetPosition > mCurrentPosition ? 1 : -1;
+    }
+
+    /**
+     * Moves the scroll model from the jump's stand-in neighbour onto the real target position,
+     * keeping the in-page scroll offset, and ends the jump.
+     */
+    private void finishJump() {
+        if (!isJumping()) {
+            return;
+        }
+
+        final int standInPosition = mJumpSourcePosition + mJumpDirection;
+        if (mCurrentPosition == standInPosition) {
+            mCurrentPosition = mJumpTargetPosition;
+        }
+
+        clearJump();
+    }
+
+    /**
+     * Moves a jump flip along with an adapter change that took its source page to
+     * {@code sourcePosition} and its target page to {@code targetPosition}, which is
+     * {@link RecyclerView#NO_POSITION} if the target was removed. The stand-in neighbour and a
+     * running settle move with the source page. A jump whose pages are no longer apart in the same
+     * direction ends.
+     */
+    private void offsetJump(int sourcePosition, int targetPosition) {
+        if (targetPosition == RecyclerView.NO_POSITION
+                || Math.abs(targetPosition - sourcePosition) <= 1
+                || (targetPosition > sourcePosition ? 1 : -1) != mJumpDirection) {
+            endJump(sourcePosition, targetPosition);
+            return;
+        }
+
+        final int offset = sourcePosition - mJumpSourcePosition;
+        final int oldPosition = toAdapterPosition(mCurrentPosition);
+        mJumpSourcePosition = sourcePosition;
+        mJumpTargetPosition = targetPosition;
+        mCurrentPosition += offset;
+
+        if (mPositionBeforeScroll != RecyclerView.NO_POSITION) {
+            mPositionBeforeScroll += offset;
+        }
+
+        mSettleAnimator.offsetBy(FlipDistance.of(offset));
+        notifyOfPositionChange(oldPosition, toAdapterPosition(mCurrentPosition));
+    }
+
+    /**
+     * Ends a jump flip broken up by an adapter change. The page it was showing, at its position
+     * after the change, becomes the current page and the flip restarts from there towards the
+     * target as a plain flip.
+     */
+    private void endJump(int sourcePosition, int targetPosition) {
+        final boolean showingTarget = mCurrentPosition == mJumpSourcePosition + mJumpDirection;
+        final int oldPosition = toAdapterPosition(mCurrentPosition);
+        final int position = showingTarget && targetPosition != RecyclerView.NO_POSITION ? targetPosition : sourcePosition;
+
+        mSettleAnimator.cancel();
+        clearJump();
+        mCurrentPosition = position;
+        mPageOffset = 0;
+        mScrollRemainder = 0;
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+        clearPageViews();
+        notifyOfPositionChange(oldPosition, mCurrentPosition);
+
+        if (targetPosition != RecyclerView.NO_POSITION && targetPosition != position) {
+            animateTo(FlipDistance.of(targetPosition));
+        } else {
+            requestLayout();
+        }
+
+        dispatchFlipStateChanged();
+    }
+
+    private void clearJump() {
+        mJumpSourcePosition = RecyclerView.NO_POSITION;
+        mJumpTargetPosition = RecyclerView.NO_POSITION;
+        mJumpDirection = 0;
+    }
+
+    private int toAdapterPosition(int layoutPosition) {
+        if (isJumping() && layoutPosition == mJumpSourcePosition + mJumpDirection) {
+            return mJumpTargetPosition;
+        }
+
+        return layoutPosition;
+    }
+
+    private int toLayoutPosition(int adapterPosition) {
+        if (!isJumping()) {
+            return adapterPosition;
+        }
+
+        if (adapterPosition == mJumpTargetPosition) {
+            return mJumpSourcePosition + mJumpDirection;
+        }
+
+        if (adapterPosition == mJumpSourcePosition + mJumpDirection) {
+            return RecyclerView.NO_POSITION;
+        }
+
+        return adapterPosition;
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        if (mScrollState != state) {
+            mScrollRemainder = 0;
+        }
+
+        if (state == RecyclerView.SCROLL_STATE_DRAGGING && mScrollState != RecyclerView.SCROLL_STATE_DRAGGING
+                && (mSettleAnimator.isRunning() || requiresSettling())) {
+            // A drag took over a settle, either running or stopped by the finger going down. It
+            // continues from the current scroll distance, confined to the flip that was in
+            // progress, the same way a fresh drag is confined to the pages next to the one it
+            // started on.
+            mSettleAnimator.cancel();
+            mPositionBeforeScroll = FlipDistance.toFloorPosition(getLongScrollDistance());
+            mScrollVector = requiresSettling() ? 1 : 0;
+        }
+
+        final int previousState = mScrollState;
+        mScrollState = state;
+
+        if (previousState != RecyclerView.SCROLL_STATE_IDLE && state == RecyclerView.SCROLL_STATE_IDLE
+                && !mSettleAnimator.isRunning()) {
+            if (requiresSettling()) {
+                settle();
+            } else {
+                onScrollStopped();
+            }
+        }
+
+        dispatchFlipStateChanged();
+    }
+
+    /**
+     * Settles a flip that was left between two pages when the finger went up without dragging,
+     * after {@link #holdSettle()} stopped it.
+     */
+    void settleIfNeeded() {
+        if (!isScrolling() && requiresSettling()) {
+            settle();
+        }
+    }
+
+    /**
+     * Stops a running settle where it is, so a touch that lands on a turning page holds it.
+     */
+    void holdSettle() {
+        if (!mSettleAnimator.isRunning()) {
+            return;
+        }
+
+        mSettleAnimator.cancel();
+
+        if (!requiresSettling()) {
+            onScrollStopped();
+        }
+
+        dispatchFlipStateChanged();
+    }
+
+    private void settle() {
+        animateTo(FlipDistance.of(mCurrentPosition));
+    }
+
+    private void animateTo(long distance) {
+        if (mRecyclerView == null) {
+            return;
+        }
+
+        mSettleAnimator.animateTo(getLongScrollDistance(), distance);
+        dispatchFlipStateChanged();
+    }
+
+    private void stopSettle() {
+        if (!mSettleAnimator.isRunning()) {
+            return;
+        }
+
+        mSettleAnimator.cancel();
+        onScrollStopped();
+        dispatchFlipStateChanged();
+    }
+
+    private void onScrollStopped() {
+        if (requiresSettling()) {
+            // Only reached when a settle couldn't move any further, e.g. at the end of the
+            // over-scroll range. Snap to the page it was settling on.
+            mPageOffset = 0;
+        }
+
+        if (isJumping()) {
+            finishJump();
+
+            if (mPendingScrollPosition != RecyclerView.NO_POSITION) {
+                postOnAnimation(mPendingScroll);
+            }
+        }
+
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+        requestLayout();
+    }
+
+    int getFlipState() {
+        final int state = getDisplayedScrollState();
+
+        // A flip held between two pages by a finger that hasn't started dragging yet.
+        if (state == RecyclerView.SCROLL_STATE_IDLE && requiresSettling()) {
+            return RecyclerView.SCROLL_STATE_DRAGGING;
+        }
+
+        return state;
+    }
+
+    private void dispatchFlipStateChanged() {
+        final int flipState = getFlipState();
+        if (flipState == mDispatchedFlipState) {
+            return;
+        }
+
+        mDispatchedFlipState = flipState;
+        updateCurrentPage();
+
+        if (mFlipStateListener != null) {
+            mFlipStateListener.onFlipStateChanged(flipState);
+        }
+    }
+
+    @Override
+    public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position can't be less then 0. position is : " + position);
+        }
+        if (position >= state.getItemCount()) {
+            throw new IllegalArgumentException("position can't be great then adapter items count. position is : " + position);
+        }
+
+        dispatchScrollRequested();
+        mPendingSavedState = null;
+
+        if (isJumping() && position != mJumpSourcePosition && position != mJumpTargetPosition) {
+            mPendingScrollPosition = position;
+            return;
+        }
+
+        if (mJumpFlipEnabled && !isJumping() && !isScrolling() && !requiresSettling() && Math.abs(position - mCurrentPosition) > 1) {
+            startJump(position);
+        }
+
+        animateTo(FlipDistance.of(toLayoutPosition(position)));
+    }
+
+    /**
+     * Flips to {@code position} starting with the release velocity of a fling, in pixels per
+     * second.
+     */
+    void flingToPosition(int position, int velocity) {
+        if (isJumping()) {
+            return;
+        }
+
+        animateTo(FlipDistance.of(position));
+        mSettleAnimator.setVelocity(velocity * INTERACTIVE_SCROLL_SPEED);
+    }
+
+    /**
+     * Follows the flip of {@code leader}: moves to the page it shows, turned by the same offset, and
+     * reports the leader's scroll state as its own. A jump flip of the leader is mirrored as a jump
+     * between the same pages. A target within a page of the current distance is scrolled to,
+     * anything further is moved to directly with a single layout. Pages past the last one stop on
+     * the last page.
+     */
+    void syncTo(FlipLayoutManager leader) {
+        if (mRecyclerView == null || getItemCount() == 0) {
+            return;
+        }
+
+        mPendingSavedState = null;
+        mSyncedScrollState = leader.getScrollState();
+
+        final int lastPosition = getItemCount() - 1;
+        int position = leader.getCurrentPosition();
+        int pageOffset = leader.mPageOffset;
+        int jumpTargetPosition = RecyclerView.NO_POSITION;
+
+        if (leader.isJumping() && leader.mJumpSourcePosition <= lastPosition) {
+            // A jump past the last page goes to the last page instead.
+            final int targetPosition = Math.min(leader.mJumpTargetPosition, lastPosition);
+            final boolean showingTarget = leader.mCurrentPosition == leader.mJumpSourcePosition + leader.mJumpDirection;
+            position = showingTarget ? targetPosition : leader.mJumpSourcePosition;
+
+            if (Math.abs(targetPosition - leader.mJumpSourcePosition) > 1) {
+                jumpTargetPosition = targetPosition;
+            }
+        } else if (position > lastPosition) {
+            position = lastPosition;
+            pageOffset = 0;
+        }
+
+        if (jumpTargetPosition != RecyclerView.NO_POSITION) {
+            syncJump(leader.mJumpSourcePosition, jumpTargetPosition, position, pageOffset);
+        } else if (isJumping() || position != getCurrentPosition() || pageOffset != mPageOffset) {
+            mSettleAnimator.cancel();
+
+            final long distance = FlipDistance.of(position, pageOffset);
+            if (!isJumping() && Math.abs(distance - getLongScrollDistance()) <= DISTANCE_PER_POSITION) {
+                scrollToDistance(distance);
+            } else {
+                moveTo(position, pageOffset);
+            }
+        }
+
+        dispatchFlipStateChanged();
+    }
+
+    /**
+     * Follows a jump flip of the leader from {@code sourcePosition} to {@code targetPosition},
+     * starting the same jump first if this layout manager isn't running it yet.
+     */
+    private void syncJump(int sourcePosition, int targetPosition, int position, int pageOffset) {
+        mSettleAnimator.cancel();
+
+        if (mJumpSourcePosition != sourcePosition || mJumpTargetPosition != targetPosition) {
+            if (isJumping() || mCurrentPosition != sourcePosition || mPageOffset != 0) {
+                moveTo(sourcePosition, 0);
+            }
+
+            startJump(targetPosition);
+        }
+
+        final int layoutPosition = position == targetPosition ? sourcePosition + mJumpDirection : sourcePosition;
+        scrollToDistance(FlipDistance.of(layoutPosition, pageOffset));
+    }
+
+    /**
+     * Moves straight to {@code position}, turned by {@code pageOffset}, with a single layout.
+     */
+    private void moveTo(int position, int pageOffset) {
+        finishJump();
+        mPendingScrollPosition = RecyclerView.NO_POSITION;
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+        setCurrentPosition(position, false);
+        mPageOffset = pageOffset;
+        clearPageViews();
+        requestLayout();
+    }
+
+    /**
+     * Stops reporting the scroll state of a leader, once this layout manager leads or no longer
+     * follows.
+     */
+    void endSync() {
+        if (mSyncedScrollState == NO_SCROLL_STATE) {
+            return;
+        }
+
+        mSyncedScrollState = NO_SCROLL_STATE;
+        dispatchFlipStateChanged();
+    }
+
+    int getPageOffset() {
+        return mPageOffset;
+    }
+
+    void setSettleFrameScheduler(FlipSettleAnimator.FrameScheduler frameScheduler) {
+        mSettleAnimator.setFrameScheduler(frameScheduler);
+    }
+
+    /**
+     * Scrolls the RecyclerView towards the given scroll distance and returns the distance reached.
+     * RecyclerView scrolls by int deltas, so a distance too far for one is scrolled in several.
+     */
+    private long scrollToDistance(long distance) {
+        long scrollDistance = getLongScrollDistance();
+        while (scrollDistance != distance && mRecyclerView != null) {
+            final int delta = (int) Math.max(-Integer.MAX_VALUE, Math.min(distance - scrollDistance, Integer.MAX_VALUE));
+            if (mOrientation == VERTICAL) {
+                mRecyclerView.scrollBy(0, delta);
+            } else {
+                mRecyclerView.scrollBy(delta, 0);
+            }
+
+            final long reachedDistance = getLongScrollDistance();
+            if (reachedDistance == scrollDistance) {
+                break;
+            }
+
+            scrollDistance = reachedDistance;
+        }
+
+        return scrollDistance;
+    }
+
+    /**
+     * Sets the stiffness of the spring that settles pages and animates programmatic flips. Higher
+     * values settle faster. Defaults to 400.
+     */
+    public void setSettleStiffness(float stiffness) {
+        mSettleAnimator.getSpring().setStiffness(stiffness);
+    }
+
+    public float getSettleStiffness() {
+        return mSettleAnimator.getSpring().getStiffness();
+    }
+
+    /**
+     * Sets the damping ratio of the settle spring. 1 settles as fast as possible without
+     * overshooting the page, lower values let the page bounce. Defaults to 1.
+     */
+    public void setSettleDampingRatio(float dampingRatio) {
+        mSettleAnimator.getSpring().setDampingRatio(dampingRatio);
+    }
+
+    public float getSettleDampingRatio() {
+        return mSettleAnimator.getSpring().getDampingRatio();
+    }
+
+    @Override
+    public void scrollToPosition(int position) {
+        dispatchScrollRequested();
+        mPendingSavedState = null;
+        mSettleAnimator.cancel();
+        finishJump();
+        mPendingScrollPosition = RecyclerView.NO_POSITION;
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+        setCurrentPosition(position, true);
+
+        // Scrolling to the current page doesn't go through setCurrentPosition(), but still ends a
+        // flip on it.
+        if (mPageOffset != 0 || mScrollRemainder != 0) {
+            mPageOffset = 0;
+            mScrollRemainder = 0;
+            requestLayout();
+        }
+
+        dispatchFlipStateChanged();
+    }
+
+    void setPositionChangeListener(OnPositionChangeListener onPositionChangeListener) {
+        mPositionChangeListener = onPositionChangeListener;
+    }
+
+    void setFlipStateListener(OnFlipStateChangeListener flipStateListener) {
+        mFlipStateListener = flipStateListener;
+    }
+
+    void setPagePrefetchListener(@Nullable OnPagePrefetchListener pagePrefetchListener) {
+        mPagePrefetchListener = pagePrefetchListener;
+    }
+
+    void setScrollRequestListener(@Nullable OnScrollRequestListener scrollRequestListener) {
+        mScrollRequestListener = scrollRequestListener;
+    }
+
+    private void dispatchScrollRequested() {
+        if (mScrollRequestListener != null) {
+            mScrollRequestListener.onScrollRequested();
+        }
+    }
+
+    void setMetricsTracker(FlipMetricsTracker metricsTracker) {
+        mMetricsTracker = metricsTracker;
+    }
+
+    public boolean isScrolling() {
+        return getScrollState() != RecyclerView.SCROLL_STATE_IDLE;
+    }
+
+    public boolean isInteractiveScroll() {
+        return getScrollState() == RecyclerView.SCROLL_STATE_DRAGGING;
+    }
+
+    public boolean requiresSettling() {
+        return mPageOffset != 0;
+    }
+
+    int getPositionBeforeScroll() {
+        return mPositionBeforeScroll;
+    }
+
+    /**
+     * Returns the RecyclerView scroll state, or {@link RecyclerView#SCROLL_STATE_SETTLING} while the
+     * settle animation runs. The settle drives the RecyclerView through
+     * {@link RecyclerView#scrollBy(int, int)}, which leaves its own state idle.
+     */
+    int getScrollState() {
+        if (mSettleAnimator.isRunning()) {
+            return RecyclerView.SCROLL_STATE_SETTLING;
+        }
+
+        return mScrollState;
+    }
+
+    /**
+     * The scroll state shown to listeners: this layout manager's own, or its leader's while a
+     * {@link FlipCoordinator} drives it.
+     */
+    int getDisplayedScrollState() {
+        final int state = getScrollState();
+        if (state == RecyclerView.SCROLL_STATE_IDLE && mSyncedScrollState != NO_SCROLL_STATE) {
+            return mSyncedScrollState;
+        }
+
+        return state;
+    }
+
+    private void notifyOfPositionChange(int oldPosition, int newPosition) {
+        if (oldPosition != newPosition && mPositionChangeListener != null) {
+            mPositionChangeListener.onPositionChange(this, newPosition);
+        }
+    }
+
+    /**
+     * Sets the number of pages on each side of the current page that stay bound, measured and laid
+     * out while idle. They are not drawn, but a flip in either direction starts with them ready.
+     */
+    public void setOffscreenPageLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit can't be less then 0. limit is : " + limit);
+        }
+
+        if (limit == mOffscreenPageLimit) {
+            return;
+        }
+
+        mOffscreenPageLimit = limit;
+        mPageViews = new View[2 * Math.max(limit, 1) + 1];
+        clearPageViews();
+        requestLayout();
+    }
+
+    public int getOffscreenPageLimit() {
+        return mOffscreenPageLimit;
+    }
+
+    /**
+     * Sets the number of pages that left the page window and are kept in RecyclerView's view
+     * cache. A cached page comes back still bound to its position, so flipping back to it doesn't
+     * bind it again. The default of 2 keeps the pages on both sides of the current one after a
+     * flip settles, the same as RecyclerView's own default. Calling this sets
+     * {@link RecyclerView#setItemViewCacheSize(int)} of the RecyclerView the layout manager is
+     * attached to; otherwise a size set on the RecyclerView directly is left alone.
+     */
+    public void setPageCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size can't be less then 0. size is : " + size);
+        }
+
+        mPageCacheSize = size;
+        mPageCacheSizeSet = true;
+
+        if (mRecyclerView != null) {
+            mRecyclerView.setItemViewCacheSize(size);
+        }
+    }
+
+    public int getPageCacheSize() {
+        return mPageCacheSize;
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        if (mPendingSavedState != null) {
+            return new SavedState(mPendingSavedState);
+        }
+
+        final SavedState state = new SavedState();
+        state.mPosition = getCurrentPosition();
+        state.mPageOffset = state.mPosition != RecyclerView.NO_POSITION ? mPageOffset : 0;
+        return state;
+    }
+
+    /**
+     * The restored page is laid out directly by the next layout with items, so nothing is bound
+     * for the first page on the way there. A position set before that layout replaces it.
+     */
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            return;
+        }
+
+        mPendingSavedState = (SavedState) state;
+        requestLayout();
+    }
+
+    private void restoreState(SavedState savedState, int itemCount) {
+        if (savedState.mPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        mSettleAnimator.cancel();
+        clearJump();
+        mPendingScrollPosition = RecyclerView.NO_POSITION;
+        mScrollVector = 0;
+        mPositionBeforeScroll = RecyclerView.NO_POSITION;
+
+        if (savedState.mPosition >= itemCount) {
+            setCurrentPosition(itemCount - 1, false);
+            mPageOffset = 0;
+            return;
+        }
+
+        setCurrentPosition(savedState.mPosition, false);
+        mPageOffset = savedState.mPageOffset;
+    }
+
+    /**
+     * The current page and the flip offset within it, so a restored view comes back on the page it
+     * was showing.
+     */
+    public static class SavedState implements Parcelable {
+        int mPosition = RecyclerView.NO_POSITION;
+        int mPageOffset;
+
+        SavedState() {
+        }
+
+        SavedState(SavedState other) {
+            mPosition = other.mPosition;
+            mPageOffset = other.mPageOffset;
+        }
+
+        SavedState(Parcel in) {
+            mPosition = in.readInt();
+            mPageOffset = in.readInt();
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(mPosition);
+            dest.writeInt(mPageOffset);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * The visibility and accessibility importance an offscreen page had before it was hidden.
+     */
+    private static class PageState {
+        final int visibility;
+        final int importantForAccessibility;
+
+        PageState(int visibility, int importantForAccessibility) {
+            this.visibility = visibility;
+            this.importantForAccessibility = importantForAccessibility;
+        }
+    }
+
+    interface OnFlipStateChangeListener {
+        /**
+         * Called when the flip starts or comes to rest on a page. The state is one of the
+         * RecyclerView scroll states; a flip held between two pages reports
+         * {@link RecyclerView#SCROLL_STATE_DRAGGING}.
+         */
+        void onFlipStateChanged(int state);
+    }
+
+    interface OnPagePrefetchListener {
+        /**
+         * Called with a page bound and laid out by the idle prefetch, right before it goes to
+         * RecyclerView's view cache.
+         */
+        void onPagePrefetched(View view, int position);
+    }
+
+    interface OnScrollRequestListener {
+        /**
+         * Called when the app moves the layout manager to a position with
+         * {@link #scrollToPosition(int)} or
+         * {@link #smoothScrollToPosition(RecyclerView, RecyclerView.State, int)}, before it moves.
+         */
+        void onScrollRequested();
     }
 }
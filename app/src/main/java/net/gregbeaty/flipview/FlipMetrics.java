@@ -0,0 +1,103 @@
+package net.gregbeaty.flipview;
+
+/**
+ * Timing and work counters for a single flip, from the moment the view starts scrolling until it
+ * comes to rest on a page. The same instance is reused for every flip, so copy out any values that
+ * need to outlive {@link FlipView.OnFlipMetricsListener#onFlipMetrics(FlipView, FlipMetrics)}.
+ */
+public final class FlipMetrics {
+    int mFrameCount;
+    int mDroppedFrameCount;
+    long mFrameTimeP50Nanos;
+    long mFrameTimeP99Nanos;
+    long mFillTimeNanos;
+    long mDrawTimeNanos;
+    int mCreatedViewCount;
+    int mBoundViewCount;
+    int mCachedViewCount;
+
+    FlipMetrics() {
+    }
+
+    void reset() {
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mFrameTimeP50Nanos = 0;
+        mFrameTimeP99Nanos = 0;
+        mFillTimeNanos = 0;
+        mDrawTimeNanos = 0;
+        mCreatedViewCount = 0;
+        mBoundViewCount = 0;
+        mCachedViewCount = 0;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    public long getFrameTimeP50Nanos() {
+        return mFrameTimeP50Nanos;
+    }
+
+    public long getFrameTimeP99Nanos() {
+        return mFrameTimeP99Nanos;
+    }
+
+    /**
+     * Total time spent laying out pages in {@link FlipLayoutManager} during the flip.
+     */
+    public long getFillTimeNanos() {
+        return mFillTimeNanos;
+    }
+
+    /**
+     * Total time spent in {@link FlipView#dispatchDraw(android.graphics.Canvas)} during the flip.
+     */
+    public long getDrawTimeNanos() {
+        return mDrawTimeNanos;
+    }
+
+    /**
+     * Estimated number of pages created during the flip. RecyclerView doesn't report creating or
+     * binding a view holder, so this counts pages the layout manager obtained for the first time.
+     * A page created ahead of the flip by RecyclerView's prefetch, or taken from a recycled view
+     * pool shared with another RecyclerView, is counted when it is first obtained.
+     */
+    public int getCreatedViewCount() {
+        return mCreatedViewCount;
+    }
+
+    /**
+     * Estimated number of pages bound during the flip: those created, and those obtained again
+     * after going through the recycled view pool. Rebinds of attached or cached pages after an
+     * adapter change are not counted.
+     */
+    public int getBoundViewCount() {
+        return mBoundViewCount;
+    }
+
+    /**
+     * Estimated number of pages that came back from RecyclerView's view cache during the flip
+     * without being bound again. See {@link FlipLayoutManager#setPageCacheSize(int)}.
+     */
+    public int getCachedViewCount() {
+        return mCachedViewCount;
+    }
+
+    /**
+     * Share of the pages obtained during the flip that came from the view cache, or 0 if the flip
+     * didn't obtain any. Derived from the estimates above.
+     */
+    public float getCacheHitRate() {
+        final int obtainedViewCount = mCachedViewCount + mBoundViewCount;
+        if (obtainedViewCount == 0) {
+            return 0;
+        }
+
+        return (float) mCachedViewCount / obtainedViewCount;
+    }
+}
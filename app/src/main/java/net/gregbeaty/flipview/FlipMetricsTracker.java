@@ -0,0 +1,164 @@
+package net.gregbeaty.flipview;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.Arrays;
+
+class FlipMetricsTracker implements Choreographer.FrameCallback {
+    private static final int MAX_FRAME_SAMPLES = 512;
+
+    private final FlipMetrics mMetrics = new FlipMetrics();
+    private final long[] mFrameTimes = new long[MAX_FRAME_SAMPLES];
+    private final Listener mListener;
+
+    private boolean mTracking;
+    private long mFrameIntervalNanos;
+    private long mLastFrameTimeNanos;
+    private int mFrameSampleCount;
+
+    interface Listener {
+        void onFlipFinished(FlipMetrics metrics);
+    }
+
+    FlipMetricsTracker(Listener listener) {
+        mListener = listener;
+    }
+
+    boolean isTracking() {
+        return mTracking;
+    }
+
+    void start(float refreshRate) {
+        if (mTracking) {
+            return;
+        }
+
+        mTracking = true;
+        mFrameIntervalNanos = (long) (1000000000L / refreshRate);
+        mLastFrameTimeNanos = 0;
+        mFrameSampleCount = 0;
+        mMetrics.reset();
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!mTracking) {
+            return;
+        }
+
+        cancel();
+
+        if (mFrameSampleCount > 0) {
+            Arrays.sort(mFrameTimes, 0, mFrameSampleCount);
+            mMetrics.mFrameTimeP50Nanos = percentile(0.5f);
+            mMetrics.mFrameTimeP99Nanos = percentile(0.99f);
+        }
+
+        mListener.onFlipFinished(mMetrics);
+    }
+
+    void cancel() {
+        if (!mTracking) {
+            return;
+        }
+
+        mTracking = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    private long percentile(float percentile) {
+        final int index = (int) Math.ceil(percentile * mFrameSampleCount) - 1;
+        return mFrameTimes[Math.max(index, 0)];
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mTracking) {
+            return;
+        }
+
+        if (mLastFrameTimeNanos != 0) {
+            final long frameTime = frameTimeNanos - mLastFrameTimeNanos;
+            final long missedFrames = Math.round((double) frameTime / mFrameIntervalNanos) - 1;
+
+            mMetrics.mFrameCount++;
+            if (missedFrames > 0) {
+                mMetrics.mDroppedFrameCount += missedFrames;
+            }
+
+            if (mFrameSampleCount < MAX_FRAME_SAMPLES) {
+                mFrameTimes[mFrameSampleCount++] = frameTime;
+            }
+        }
+
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    long beginSection() {
+        return mTracking ? System.nanoTime() : 0;
+    }
+
+    void endFillSection(long startNanos) {
+        if (mTracking && startNanos != 0) {
+            mMetrics.mFillTimeNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    void endDrawSection(long startNanos) {
+        if (mTracking && startNanos != 0) {
+            mMetrics.mDrawTimeNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * RecyclerView has no callback for creating or binding a view holder, so the counts are
+     * estimates: pages are tagged the first time the layout manager sees them and flagged whenever
+     * they go back to the recycled view pool, the two cases that require a bind when the page is
+     * obtained again. A page the layout manager removed that didn't reach the pool came back from
+     * the view cache. Binds RecyclerView does on its own, e.g. rebinding an attached or cached page
+     * after an adapter change or prefetching a page, aren't seen here.
+     */
+    void onPageObtained(View view) {
+        PageRecord record = (PageRecord) view.getTag(R.id.flip_view_page_record);
+        if (record == null) {
+            record = new PageRecord();
+            view.setTag(R.id.flip_view_page_record, record);
+
+            if (mTracking) {
+                mMetrics.mCreatedViewCount++;
+                mMetrics.mBoundViewCount++;
+            }
+        } else if (record.recycled) {
+            if (mTracking) {
+                mMetrics.mBoundViewCount++;
+            }
+        } else if (record.removed && mTracking) {
+            mMetrics.mCachedViewCount++;
+        }
+
+        record.recycled = false;
+        record.removed = false;
+    }
+
+    void onPageRemoved(View view) {
+        final PageRecord record = (PageRecord) view.getTag(R.id.flip_view_page_record);
+        if (record != null) {
+            record.removed = true;
+        }
+    }
+
+    void onPageRecycled(View view) {
+        final PageRecord record = (PageRecord) view.getTag(R.id.flip_view_page_record);
+        if (record != null) {
+            record.recycled = true;
+        }
+    }
+
+    private static class PageRecord {
+        boolean recycled;
+        boolean removed;
+    }
+}
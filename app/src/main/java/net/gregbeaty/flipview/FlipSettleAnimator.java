@@ -0,0 +1,171 @@
+package net.gregbeaty.flipview;
+
+import android.view.Choreographer;
+
+/**
+ * Drives the scroll distance towards a target with a {@link FlipSpring}, one step per frame.
+ * Time only advances with the frame times handed to {@link #doFrame(long)}, so the animation is
+ * fully determined by the frames it is given.
+ */
+class FlipSettleAnimator implements Choreographer.FrameCallback {
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    // Long stalls, e.g. while the app is paused in a debugger, shouldn't make the page jump.
+    private static final double MAX_FRAME_SECONDS = 0.1;
+
+    private final FlipSpring mSpring = new FlipSpring();
+    private final Callback mCallback;
+    private FrameScheduler mFrameScheduler;
+
+    private boolean mRunning;
+    private long mLastFrameTimeNanos;
+
+    interface Callback {
+        /**
+         * Moves the scroll distance to {@code distance} and returns the distance actually reached.
+         */
+        long onAnimationStep(long distance);
+
+        void onAnimationEnd();
+    }
+
+    interface FrameScheduler {
+        void postFrameCallback(Choreographer.FrameCallback callback);
+
+        void removeFrameCallback(Choreographer.FrameCallback callback);
+    }
+
+    static final FrameScheduler CHOREOGRAPHER_SCHEDULER = new FrameScheduler() {
+        @Override
+        public void postFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().postFrameCallback(callback);
+        }
+
+        @Override
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().removeFrameCallback(callback);
+        }
+    };
+
+    FlipSettleAnimator(Callback callback) {
+        this(callback, CHOREOGRAPHER_SCHEDULER);
+    }
+
+    FlipSettleAnimator(Callback callback, FrameScheduler frameScheduler) {
+        mCallback = callback;
+        mFrameScheduler = frameScheduler;
+    }
+
+    /**
+     * Moves the animation onto another frame scheduler, carrying over a pending frame.
+     */
+    void setFrameScheduler(FrameScheduler frameScheduler) {
+        if (mFrameScheduler == frameScheduler) {
+            return;
+        }
+
+        if (mRunning) {
+            mFrameScheduler.removeFrameCallback(this);
+            frameScheduler.postFrameCallback(this);
+        }
+
+        mFrameScheduler = frameScheduler;
+    }
+
+    FlipSpring getSpring() {
+        return mSpring;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Starts animating from {@code fromDistance} to {@code toDistance}. If an animation is already
+     * running, it is retargeted and keeps its current value and velocity.
+     */
+    void animateTo(long fromDistance, long toDistance) {
+        mSpring.setTarget(toDistance);
+
+        if (mRunning) {
+            return;
+        }
+
+        mSpring.setValue(fromDistance);
+        mSpring.setVelocity(0);
+        mRunning = true;
+        mLastFrameTimeNanos = 0;
+        mFrameScheduler.postFrameCallback(this);
+    }
+
+    /**
+     * Gives the running animation an initial velocity in scroll distance units per second. The
+     * velocity is only applied towards the target and is capped so a critically damped spring
+     * doesn't overshoot it.
+     */
+    void setVelocity(float velocity) {
+        if (!mRunning) {
+            return;
+        }
+
+        final double displacement = mSpring.getTarget() - mSpring.getValue();
+        if (displacement == 0 || Math.signum(velocity) != Math.signum(displacement)) {
+            mSpring.setVelocity(0);
+            return;
+        }
+
+        final double maxVelocity = mSpring.getNaturalFrequency() * Math.abs(displacement);
+        mSpring.setVelocity(Math.signum(velocity) * Math.min(Math.abs(velocity), maxVelocity));
+    }
+
+    /**
+     * Shifts the running animation, its target and its current value, by {@code delta}, e.g. when
+     * the pages it animates across move in the adapter.
+     */
+    void offsetBy(long delta) {
+        if (!mRunning) {
+            return;
+        }
+
+        mSpring.setValue(mSpring.getValue() + delta);
+        mSpring.setTarget(mSpring.getTarget() + delta);
+    }
+
+    void cancel() {
+        if (!mRunning) {
+            return;
+        }
+
+        mRunning = false;
+        mFrameScheduler.removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+
+        if (mLastFrameTimeNanos != 0) {
+            mSpring.step(Math.min((frameTimeNanos - mLastFrameTimeNanos) / NANOS_PER_SECOND, MAX_FRAME_SECONDS));
+        }
+
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        final boolean atRest = mSpring.isAtRest();
+        final long distance = Math.round(atRest ? mSpring.getTarget() : mSpring.getValue());
+        final long reachedDistance = mCallback.onAnimationStep(distance);
+
+        // The step can end in listener code that cancels the animation.
+        if (!mRunning) {
+            return;
+        }
+
+        if (atRest || reachedDistance != distance) {
+            mRunning = false;
+            mCallback.onAnimationEnd();
+            return;
+        }
+
+        mFrameScheduler.postFrameCallback(this);
+    }
+}
@@ -0,0 +1,126 @@
+package net.gregbeaty.flipview;
+
+/**
+ * Damped spring pulling a value towards a target, with a unit mass. Each step is solved
+ * analytically from the current value and velocity, so the result does not depend on how the
+ * elapsed time is split into frames.
+ */
+class FlipSpring {
+    static final float DEFAULT_STIFFNESS = 400f;
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+
+    private static final double REST_DISPLACEMENT = 0.5;
+    private static final double REST_VELOCITY = 5;
+
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+    private double mValue;
+    private double mVelocity;
+    private double mTarget;
+
+    void setStiffness(float stiffness) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("stiffness must be greater then 0. stiffness is : " + stiffness);
+        }
+
+        mStiffness = stiffness;
+    }
+
+    float getStiffness() {
+        return mStiffness;
+    }
+
+    void setDampingRatio(float dampingRatio) {
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("dampingRatio can't be less then 0. dampingRatio is : " + dampingRatio);
+        }
+
+        mDampingRatio = dampingRatio;
+    }
+
+    float getDampingRatio() {
+        return mDampingRatio;
+    }
+
+    void setValue(double value) {
+        mValue = value;
+    }
+
+    double getValue() {
+        return mValue;
+    }
+
+    void setVelocity(double velocity) {
+        mVelocity = velocity;
+    }
+
+    double getVelocity() {
+        return mVelocity;
+    }
+
+    void setTarget(double target) {
+        mTarget = target;
+    }
+
+    double getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * Returns the natural frequency of the spring, in radians per second.
+     */
+    double getNaturalFrequency() {
+        return Math.sqrt(mStiffness);
+    }
+
+    boolean isAtRest() {
+        return Math.abs(mValue - mTarget) < REST_DISPLACEMENT && Math.abs(mVelocity) < REST_VELOCITY;
+    }
+
+    void step(double seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+
+        final double omega = getNaturalFrequency();
+        final double zeta = mDampingRatio;
+        final double x0 = mValue - mTarget;
+        final double v0 = mVelocity;
+
+        final double displacement;
+        final double velocity;
+
+        if (zeta > 1) {
+            final double root = omega * Math.sqrt(zeta * zeta - 1);
+            final double gammaPlus = -zeta * omega + root;
+            final double gammaMinus = -zeta * omega - root;
+            final double b = (gammaMinus * x0 - v0) / (gammaMinus - gammaPlus);
+            final double a = x0 - b;
+            final double expMinus = Math.exp(gammaMinus * seconds);
+            final double expPlus = Math.exp(gammaPlus * seconds);
+
+            displacement = a * expMinus + b * expPlus;
+            velocity = a * gammaMinus * expMinus + b * gammaPlus * expPlus;
+        } else if (zeta == 1) {
+            final double a = x0;
+            final double b = v0 + omega * x0;
+            final double exp = Math.exp(-omega * seconds);
+
+            displacement = (a + b * seconds) * exp;
+            velocity = b * exp - omega * displacement;
+        } else {
+            final double dampedOmega = omega * Math.sqrt(1 - zeta * zeta);
+            final double a = x0;
+            final double b = (zeta * omega * x0 + v0) / dampedOmega;
+            final double exp = Math.exp(-zeta * omega * seconds);
+            final double cos = Math.cos(dampedOmega * seconds);
+            final double sin = Math.sin(dampedOmega * seconds);
+
+            displacement = exp * (a * cos + b * sin);
+            velocity = -zeta * omega * displacement + exp * dampedOmega * (b * cos - a * sin);
+        }
+
+        mValue = mTarget + displacement;
+        mVelocity = velocity;
+    }
+}
@@ -0,0 +1,127 @@
+package net.gregbeaty.flipview;
+
+import android.graphics.Camera;
+import android.graphics.Matrix;
+
+class FlipTransformTable {
+    private static final int ANGLE_COUNT = FlipLayoutManager.DISTANCE_PER_POSITION + 1;
+
+    private final Matrix[] mMatrices = new Matrix[ANGLE_COUNT];
+    private final int[] mShadowAlphas = new int[ANGLE_COUNT];
+    private final int[] mShadeAlphas = new int[ANGLE_COUNT];
+    private final int[] mShineAlphas = new int[ANGLE_COUNT];
+    private final Camera mCamera = new Camera();
+    private final Matrix mInterpolatedMatrix = new Matrix();
+    private final float[] mValues = new float[9];
+    private final float[] mNextValues = new float[9];
+
+    private int mWidth = -1;
+    private int mHeight = -1;
+    private boolean mVertical;
+
+    FlipTransformTable(int maxShadowAlpha, int maxShadeAlpha, int maxShineAlpha) {
+        for (int angle = 0; angle < ANGLE_COUNT; angle++) {
+            mMatrices[angle] = new Matrix();
+            mShadowAlphas[angle] = (int) ((Math.abs(angle - 90) / 90f) * maxShadowAlpha);
+            mShadeAlphas[angle] = angle < 90 ? 0 : (int) ((Math.abs(angle - 180) / 90f) * maxShadeAlpha);
+            mShineAlphas[angle] = angle < 90 ? (int) ((angle / 90f) * maxShineAlpha) : 0;
+        }
+    }
+
+    void build(int width, int height, boolean vertical) {
+        if (width == mWidth && height == mHeight && vertical == mVertical) {
+            return;
+        }
+
+        mWidth = width;
+        mHeight = height;
+        mVertical = vertical;
+
+        for (int angle = 0; angle < ANGLE_COUNT; angle++) {
+            final Matrix matrix = mMatrices[angle];
+
+            mCamera.save();
+
+            if (angle > 90) {
+                if (vertical) {
+                    mCamera.rotateX(angle - 180);
+                } else {
+                    mCamera.rotateY(180 - angle);
+                }
+            } else {
+                if (vertical) {
+                    mCamera.rotateX(angle);
+                } else {
+                    mCamera.rotateY(-angle);
+                }
+            }
+
+            mCamera.getMatrix(matrix);
+            mCamera.restore();
+
+            matrix.preScale(0.25f, 0.25f);
+            matrix.postScale(4.0f, 4.0f);
+            matrix.preTranslate(-width / 2, -height / 2);
+            matrix.postTranslate(width / 2, height / 2);
+        }
+    }
+
+    Matrix getMatrix(int angle) {
+        return mMatrices[angle];
+    }
+
+    /**
+     * Returns the matrix for a fractional angle, interpolated between the entries of the two
+     * whole angles around it. The returned matrix is reused by the next call.
+     */
+    Matrix getMatrix(float angle) {
+        final int index = (int) angle;
+        final float fraction = angle - index;
+        if (fraction == 0 || index + 1 >= ANGLE_COUNT) {
+            return mMatrices[index];
+        }
+
+        mMatrices[index].getValues(mValues);
+        mMatrices[index + 1].getValues(mNextValues);
+        for (int i = 0; i < mValues.length; i++) {
+            mValues[i] += (mNextValues[i] - mValues[i]) * fraction;
+        }
+
+        mInterpolatedMatrix.setValues(mValues);
+        return mInterpolatedMatrix;
+    }
+
+    int getShadowAlpha(int angle) {
+        return mShadowAlphas[angle];
+    }
+
+    int getShadowAlpha(float angle) {
+        return interpolate(mShadowAlphas, angle);
+    }
+
+    int getShadeAlpha(int angle) {
+        return mShadeAlphas[angle];
+    }
+
+    int getShadeAlpha(float angle) {
+        return interpolate(mShadeAlphas, angle);
+    }
+
+    int getShineAlpha(int angle) {
+        return mShineAlphas[angle];
+    }
+
+    int getShineAlpha(float angle) {
+        return interpolate(mShineAlphas, angle);
+    }
+
+    private static int interpolate(int[] alphas, float angle) {
+        final int index = (int) angle;
+        final float fraction = angle - index;
+        if (fraction == 0 || index + 1 >= ANGLE_COUNT) {
+            return alphas[index];
+        }
+
+        return Math.round(alphas[index] + (alphas[index + 1] - alphas[index]) * fraction);
+    }
+}
@@ -1,38 +1,163 @@
 package net.gregbeaty.flipview;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
-import android.graphics.Camera;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.Nullable;
+import android.support.v4.app.ActivityManagerCompat;
+import android.support.v4.os.TraceCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.WindowManager;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class FlipView extends RecyclerView implements OnPositionChangeListener {
+    public static final int FLIP_QUALITY_FULL = 1;
+    public static final int FLIP_QUALITY_HALF = 2;
+    public static final int FLIP_QUALITY_QUARTER = 4;
+
+    public static final int PRERENDER_NONE = 0;
+    public static final int PRERENDER_PICTURE = 1;
+    public static final int PRERENDER_BITMAP = 2;
+
     private static final int MAX_SHADOW_ALPHA = 180;
     private static final int MAX_SHADE_ALPHA = 130;
     private static final int MAX_SHINE_ALPHA = 100;
+    private static final int DEFAULT_MAX_FLING_PAGES = 10;
+    private static final String TRACE_DRAW_TAG = "FlipView Draw";
 
     private final Rect mTopClippingRect = new Rect();
     private final Rect mBottomClippingRect = new Rect();
     private final Rect mRightClippingRect = new Rect();
     private final Rect mLeftClippingRect = new Rect();
+    private final Rect mFlippingPageRect = new Rect();
 
-    private Camera mCamera = new Camera();
-    private Matrix mMatrix = new Matrix();
+    private final FlipTransformTable mTransforms = new FlipTransformTable(MAX_SHADOW_ALPHA, MAX_SHADE_ALPHA, MAX_SHINE_ALPHA);
 
     private final Paint mShadowPaint = new Paint();
     private final Paint mShadePaint = new Paint();
     private final Paint mShinePaint = new Paint();
+    private final Paint mSnapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final PageBitmapPool mBitmapPool = new PageBitmapPool();
+    private final PageSnapshotCache mPageSnapshots = new PageSnapshotCache(mBitmapPool);
+    private final PageSnapshotCache mFlippingPageSnapshots = new PageSnapshotCache(mBitmapPool);
+    private boolean mSnapshotFlipEnabled;
+    private int mFlipQuality = FLIP_QUALITY_FULL;
+    private final PagePrerenderCache mPrerenderedPages = new PagePrerenderCache(mBitmapPool);
+    private int mPrerenderMode = PRERENDER_NONE;
+    private boolean mPrerenderScheduled;
+    private boolean mFlingEnabled;
+    private int mMaxFlingPages = DEFAULT_MAX_FLING_PAGES;
 
     private List<OnPositionChangeListener> mPositionChangeListeners;
+    private List<OnScrollListener> mScrollListeners;
+    private OnScrollListener mScrollListener;
+    private int mDispatchedScrollState = SCROLL_STATE_IDLE;
+    private List<OnFlipMetricsListener> mFlipMetricsListeners;
+    private RecyclerListener mRecyclerListener;
+    private FlipCoordinator mFlipCoordinator;
+
+    private final FlipMetricsTracker mMetricsTracker = new FlipMetricsTracker(new FlipMetricsTracker.Listener() {
+        @Override
+        public void onFlipFinished(FlipMetrics metrics) {
+            if (mFlipMetricsListeners == null) {
+                return;
+            }
+
+            for (int i = 0; i < mFlipMetricsListeners.size(); i++) {
+                mFlipMetricsListeners.get(i).onFlipMetrics(FlipView.this, metrics);
+            }
+        }
+    });
+
+    private final MessageQueue.IdleHandler mPrerender = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrerenderScheduled = false;
+            prerenderPages();
+            return false;
+        }
+    };
+
+    private final ComponentCallbacks2 mTrimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            mBitmapPool.trimMemory(level, isFlipping());
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            mBitmapPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE, isFlipping());
+        }
+    };
+
+    private final FlipLayoutManager.OnFlipStateChangeListener mFlipStateListener = new FlipLayoutManager.OnFlipStateChangeListener() {
+        @Override
+        public void onFlipStateChanged(int state) {
+            FlipView.this.onFlipStateChanged(state);
+        }
+    };
+
+    private final FlipLayoutManager.OnScrollRequestListener mScrollRequestListener = new FlipLayoutManager.OnScrollRequestListener() {
+        @Override
+        public void onScrollRequested() {
+            if (mFlipCoordinator != null) {
+                mFlipCoordinator.setLeader(FlipView.this);
+            }
+        }
+    };
+
+    private final FlipLayoutManager.OnPagePrefetchListener mPagePrefetchListener = new FlipLayoutManager.OnPagePrefetchListener() {
+        @Override
+        public void onPagePrefetched(View view, int position) {
+            mPrerenderedPages.record(view, position, getLayoutManager().getCurrentPosition());
+        }
+    };
+
+    private final AdapterDataObserver mPrerenderObserver = new AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            clearPositionedCaches();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mPrerenderedPages.invalidate(positionStart, itemCount);
+            mPageSnapshots.invalidate(positionStart, itemCount);
+            mFlippingPageSnapshots.invalidate(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            clearPositionedCaches();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            clearPositionedCaches();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            clearPositionedCaches();
+        }
+    };
 
     public FlipView(Context context) {
         this(context, null);
@@ -46,6 +171,60 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
         super(context, attrs, defStyle);
 
         setItemAnimator(new DefaultItemAnimator());
+        mBitmapPool.setSizeLimit(getDefaultBitmapPoolMaxSize(context));
+        super.setRecyclerListener(new RecyclerListener() {
+            @Override
+            public void onViewRecycled(ViewHolder holder) {
+                mMetricsTracker.onPageRecycled(holder.itemView);
+
+                if (mRecyclerListener != null) {
+                    mRecyclerListener.onViewRecycled(holder);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void setAdapter(Adapter adapter) {
+        unregisterPrerenderObserver();
+        super.setAdapter(adapter);
+        registerPrerenderObserver();
+    }
+
+    @Override
+    public void swapAdapter(Adapter adapter, boolean removeAndRecycleExistingViews) {
+        unregisterPrerenderObserver();
+        super.swapAdapter(adapter, removeAndRecycleExistingViews);
+        registerPrerenderObserver();
+    }
+
+    private void registerPrerenderObserver() {
+        if (getAdapter() != null) {
+            getAdapter().registerAdapterDataObserver(mPrerenderObserver);
+        }
+    }
+
+    private void unregisterPrerenderObserver() {
+        mPrerenderedPages.clear();
+
+        if (getAdapter() != null) {
+            getAdapter().unregisterAdapterDataObserver(mPrerenderObserver);
+        }
+    }
+
+    /**
+     * Snapshots and prerendered pages are kept by adapter position, which a data set change, insert,
+     * remove or move shifts under them.
+     */
+    private void clearPositionedCaches() {
+        mPrerenderedPages.clear();
+        mPageSnapshots.clear();
+        mFlippingPageSnapshots.clear();
+    }
+
+    @Override
+    public void setRecyclerListener(RecyclerListener listener) {
+        mRecyclerListener = listener;
     }
 
     @Override
@@ -75,16 +254,78 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
         mRightClippingRect.right = getWidth();
         mRightClippingRect.bottom = getHeight();
 
+        mBitmapPool.setPageSize(getWidth(), getHeight());
+
+        if (getLayoutManager() != null) {
+            mTransforms.build(getWidth(), getHeight(), getLayoutManager().getOrientation() == FlipLayoutManager.VERTICAL);
+        }
+
         super.onLayout(changed, l, t, r, b);
+
+        schedulePrerender();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+
+        mPageSnapshots.clear();
+        mFlippingPageSnapshots.clear();
+        mPrerenderedPages.release();
+        mBitmapPool.clear();
+        mMetricsTracker.cancel();
+
+        if (mPrerenderScheduled) {
+            mPrerenderScheduled = false;
+            Looper.myQueue().removeIdleHandler(mPrerender);
+        }
+    }
+
+    /**
+     * A finger landing on a settling page holds it where it is; it either drags it from there or,
+     * when lifted without dragging, lets it settle again.
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent e) {
+        FlipLayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null) {
+            return super.dispatchTouchEvent(e);
+        }
+
+        final int action = e.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            layoutManager.holdSettle();
+        }
+
+        final boolean handled = super.dispatchTouchEvent(e);
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            layoutManager.settleIfNeeded();
+        }
+
+        return handled;
     }
 
+    /**
+     * While a page is turning every page in the flip is visible at the same bounds, so a finger
+     * landing then goes to the flip itself rather than to whichever page is under it.
+     */
     @Override
-    public boolean onTouchEvent(MotionEvent e) {
-        if (getLayoutManager() == null) {
-            return super.onTouchEvent(e);
+    public boolean onInterceptTouchEvent(MotionEvent e) {
+        if (super.onInterceptTouchEvent(e)) {
+            return true;
         }
 
-        return getLayoutManager().getScrollState() != RecyclerView.SCROLL_STATE_SETTLING && super.onTouchEvent(e);
+        return e.getActionMasked() == MotionEvent.ACTION_DOWN && isFlipping();
     }
 
     /**
@@ -100,10 +341,32 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
 
     public void setLayoutManager(FlipLayoutManager layoutManager) {
         layoutManager.setPositionChangeListener(this);
+        layoutManager.setFlipStateListener(mFlipStateListener);
+        layoutManager.setScrollRequestListener(mScrollRequestListener);
+        layoutManager.setMetricsTracker(mMetricsTracker);
+        layoutManager.setSettleFrameScheduler(getSettleFrameScheduler());
+        layoutManager.setPagePrefetchListener(mPrerenderMode != PRERENDER_NONE ? mPagePrefetchListener : null);
 
         super.setLayoutManager(layoutManager);
     }
 
+    void setFlipCoordinator(@Nullable FlipCoordinator flipCoordinator) {
+        mFlipCoordinator = flipCoordinator;
+
+        if (getLayoutManager() != null) {
+            getLayoutManager().setSettleFrameScheduler(getSettleFrameScheduler());
+        }
+    }
+
+    @Nullable
+    FlipCoordinator getFlipCoordinator() {
+        return mFlipCoordinator;
+    }
+
+    private FlipSettleAnimator.FrameScheduler getSettleFrameScheduler() {
+        return mFlipCoordinator != null ? mFlipCoordinator.getFrameScheduler() : FlipSettleAnimator.CHOREOGRAPHER_SCHEDULER;
+    }
+
     @Override
     public FlipLayoutManager getLayoutManager() {
         return (FlipLayoutManager) super.getLayoutManager();
@@ -111,11 +374,144 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
 
     @Override
     public boolean fling(int velocityX, int velocityY) {
-        return false;
+        FlipLayoutManager layoutManager = getLayoutManager();
+        if (!mFlingEnabled || layoutManager == null || getAdapter() == null) {
+            return false;
+        }
+
+        final int velocity = layoutManager.getOrientation() == FlipLayoutManager.VERTICAL ? velocityY : velocityX;
+        if (Math.abs(velocity) < getMinFlingVelocity()) {
+            return false;
+        }
+
+        final long velocityPages = (long) Math.abs(velocity) * mMaxFlingPages / getMaxFlingVelocity();
+        final int pages = (int) Math.max(1, Math.min(velocityPages, mMaxFlingPages));
+        final int startPosition = layoutManager.getPositionBeforeScroll() != RecyclerView.NO_POSITION
+                ? layoutManager.getPositionBeforeScroll()
+                : layoutManager.getCurrentPosition();
+
+        // Clamped in long, a fling near either end of the largest adapter can't overflow.
+        final long flingPosition = (long) startPosition + (velocity > 0 ? pages : -pages);
+        final int targetPosition = (int) Math.max(0, Math.min(flingPosition, getAdapter().getItemCount() - 1));
+
+        if (targetPosition == layoutManager.getCurrentPosition() && !layoutManager.requiresSettling()) {
+            return false;
+        }
+
+        // End the drag first so the flip continues from where the finger left it, carrying its
+        // velocity, instead of the drag settling back onto the current page.
+        stopScroll();
+        layoutManager.flingToPosition(targetPosition, velocity);
+        return true;
+    }
+
+    @Override
+    public void onScrolled(int dx, int dy) {
+        super.onScrolled(dx, dy);
+
+        if (isFlipping()) {
+            captureSnapshots();
+        }
+
+        if (mFlipCoordinator != null) {
+            mFlipCoordinator.onFlipViewScrolled();
+        }
+
+        if (mScrollListener != null) {
+            mScrollListener.onScrolled(this, dx, dy);
+        }
+
+        if (mScrollListeners != null) {
+            for (int i = mScrollListeners.size() - 1; i >= 0; i--) {
+                mScrollListeners.get(i).onScrolled(this, dx, dy);
+            }
+        }
+    }
+
+    /**
+     * Returns {@link #SCROLL_STATE_SETTLING} while a page settles, flings or flips to a position.
+     * Those flips are animated by the layout manager, which leaves RecyclerView's own state idle.
+     * A view that follows another through a {@link FlipCoordinator} returns the state of the view
+     * it follows.
+     */
+    @Override
+    public int getScrollState() {
+        FlipLayoutManager layoutManager = getLayoutManager();
+        return layoutManager != null ? layoutManager.getDisplayedScrollState() : super.getScrollState();
+    }
+
+    /**
+     * Scroll listeners are dispatched by this view rather than by RecyclerView, so they see the
+     * state returned by {@link #getScrollState()}, including {@link #SCROLL_STATE_SETTLING}.
+     */
+    @Override
+    public void addOnScrollListener(OnScrollListener listener) {
+        if (mScrollListeners == null) {
+            mScrollListeners = new ArrayList<>();
+        }
+
+        mScrollListeners.add(listener);
+    }
+
+    @Override
+    public void removeOnScrollListener(OnScrollListener listener) {
+        if (mScrollListeners == null) {
+            return;
+        }
+
+        mScrollListeners.remove(listener);
+    }
+
+    @Override
+    public void clearOnScrollListeners() {
+        if (mScrollListeners == null) {
+            return;
+        }
+
+        mScrollListeners.clear();
+    }
+
+    /**
+     * @deprecated Use {@link #addOnScrollListener(OnScrollListener)} and
+     * {@link #removeOnScrollListener(OnScrollListener)}.
+     */
+    @Override
+    @Deprecated
+    public void setOnScrollListener(OnScrollListener listener) {
+        mScrollListener = listener;
+    }
+
+    private void dispatchScrollStateChanged() {
+        final int state = getScrollState();
+        if (state == mDispatchedScrollState) {
+            return;
+        }
+
+        mDispatchedScrollState = state;
+
+        if (mScrollListener != null) {
+            mScrollListener.onScrollStateChanged(this, state);
+        }
+
+        if (mScrollListeners != null) {
+            for (int i = mScrollListeners.size() - 1; i >= 0; i--) {
+                mScrollListeners.get(i).onScrollStateChanged(this, state);
+            }
+        }
     }
 
     @Override
     protected void dispatchDraw(Canvas canvas) {
+        TraceCompat.beginSection(TRACE_DRAW_TAG);
+        final long drawStart = mMetricsTracker.beginSection();
+
+        drawPages(canvas);
+
+        mMetricsTracker.endDrawSection(drawStart);
+        TraceCompat.endSection();
+    }
+
+    private void drawPages(Canvas canvas) {
         int viewCount = getChildCount();
         if (viewCount == 0) {
             return;
@@ -127,30 +523,12 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
         }
 
         final boolean isVerticalScrolling = layoutManager.getOrientation() == FlipLayoutManager.VERTICAL;
-        final int angle = layoutManager.getAngle();
+        final float angle = layoutManager.getExactAngle();
         final int currentPosition = layoutManager.getCurrentPosition();
 
-        View previousView = null;
-        View currentView = null;
-        View nextView = null;
-
-        for (int i = 0; i < viewCount; i++) {
-            View view = getChildAt(i);
-            int position = getChildAdapterPosition(view);
-            if (position == currentPosition - 1) {
-                previousView = view;
-                continue;
-            }
-
-            if (position == currentPosition) {
-                currentView = view;
-                continue;
-            }
-
-            if (position == currentPosition + 1) {
-                nextView = view;
-            }
-        }
+        final View previousView = layoutManager.getPageView(-1);
+        final View currentView = layoutManager.getPageView(0);
+        final View nextView = layoutManager.getPageView(1);
 
         if (currentView == null) {
             return;
@@ -166,12 +544,11 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
         canvas.clipRect(isVerticalScrolling ? mTopClippingRect : mLeftClippingRect);
         final View previousHalf = angle >= 90 ? previousView : currentView;
         if (previousHalf != null) {
-            drawChild(canvas, previousHalf, 0);
+            drawPage(canvas, previousHalf, currentPosition);
         }
 
         if (angle > 90) {
-            final int alpha = (int) (((angle - 90) / 90f) * MAX_SHADOW_ALPHA);
-            mShadowPaint.setAlpha(alpha);
+            mShadowPaint.setAlpha(mTransforms.getShadowAlpha(angle));
             canvas.drawPaint(mShadowPaint);
         }
 
@@ -183,12 +560,11 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
         final View nextHalf = angle >= 90 ? currentView : nextView;
 
         if (nextHalf != null) {
-            drawChild(canvas, nextHalf, 0);
+            drawPage(canvas, nextHalf, currentPosition);
         }
 
         if (angle < 90) {
-            final int alpha = (int) ((Math.abs(angle - 90) / 90f) * MAX_SHADOW_ALPHA);
-            mShadowPaint.setAlpha(alpha);
+            mShadowPaint.setAlpha(mTransforms.getShadowAlpha(angle));
             canvas.drawPaint(mShadowPaint);
         }
 
@@ -196,57 +572,131 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
 
         //draw flipping half
         canvas.save();
-        mCamera.save();
 
         if (angle > 90) {
             canvas.clipRect(isVerticalScrolling ? mTopClippingRect : mLeftClippingRect);
-            if (isVerticalScrolling) {
-                mCamera.rotateX(angle - 180);
-            } else {
-                mCamera.rotateY(180 - angle);
-            }
         } else {
             canvas.clipRect(isVerticalScrolling ? mBottomClippingRect : mRightClippingRect);
-            if (isVerticalScrolling) {
-                mCamera.rotateX(angle);
-            } else {
-                mCamera.rotateY(-angle);
-            }
         }
 
-        mCamera.getMatrix(mMatrix);
-
-        mMatrix.preScale(0.25f, 0.25f);
-        mMatrix.postScale(4.0f, 4.0f);
-        mMatrix.preTranslate(-getWidth() / 2, -getHeight() / 2);
-        mMatrix.postTranslate(getWidth() / 2, getHeight() / 2);
+        canvas.concat(mTransforms.getMatrix(angle));
 
-        canvas.concat(mMatrix);
-
-        drawChild(canvas, currentView, 0);
+        drawFlippingPage(canvas, currentView, currentPosition);
 
         if (angle < 90) {
-            final int alpha = (int) ((angle / 90f) * MAX_SHINE_ALPHA);
-            mShinePaint.setAlpha(alpha);
+            mShinePaint.setAlpha(mTransforms.getShineAlpha(angle));
             canvas.drawRect(isVerticalScrolling ? mBottomClippingRect : mRightClippingRect, mShinePaint);
         } else {
-            final int alpha = (int) ((Math.abs(angle - 180) / 90f) * MAX_SHADE_ALPHA);
-            mShadePaint.setAlpha(alpha);
+            mShadePaint.setAlpha(mTransforms.getShadeAlpha(angle));
             canvas.drawRect(isVerticalScrolling ? mTopClippingRect : mLeftClippingRect, mShadePaint);
         }
 
-        mCamera.restore();
         canvas.restore();
     }
 
+    private void drawPage(Canvas canvas, View view, int currentPosition) {
+        if (mPrerenderMode != PRERENDER_NONE
+                && mPrerenderedPages.draw(canvas, view, getLayoutManager().getPosition(view), mSnapshotPaint)) {
+            return;
+        }
+
+        if (!mSnapshotFlipEnabled) {
+            drawChild(canvas, view, 0);
+            return;
+        }
+
+        Bitmap snapshot = mPageSnapshots.get(view, getLayoutManager().getPosition(view), currentPosition);
+        if (snapshot == null) {
+            drawChild(canvas, view, 0);
+            return;
+        }
+
+        canvas.drawBitmap(snapshot, view.getLeft(), view.getTop(), mSnapshotPaint);
+    }
+
+    private void drawFlippingPage(Canvas canvas, View view, int currentPosition) {
+        if (mFlipQuality == FLIP_QUALITY_FULL) {
+            drawPage(canvas, view, currentPosition);
+            return;
+        }
+
+        Bitmap snapshot = mFlippingPageSnapshots.get(view, getLayoutManager().getPosition(view), currentPosition);
+        if (snapshot == null) {
+            drawPage(canvas, view, currentPosition);
+            return;
+        }
+
+        mFlippingPageRect.set(view.getLeft(), view.getTop(), view.getRight(), view.getBottom());
+        canvas.drawBitmap(snapshot, null, mFlippingPageRect, mSnapshotPaint);
+    }
+
+    /**
+     * Captures the snapshots of the pages taking part in the flip as soon as it starts, and those
+     * of pages attached by a scroll right after it, so the frames of the flip only draw bitmaps.
+     * Drawing still captures a snapshot that is missing or out of date.
+     */
+    private void captureSnapshots() {
+        FlipLayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null || (!mSnapshotFlipEnabled && mFlipQuality == FLIP_QUALITY_FULL)) {
+            return;
+        }
+
+        final int currentPosition = layoutManager.getCurrentPosition();
+        if (mSnapshotFlipEnabled) {
+            for (int offset = -1; offset <= 1; offset++) {
+                final View view = layoutManager.getPageView(offset);
+                if (view != null) {
+                    mPageSnapshots.get(view, layoutManager.getPosition(view), currentPosition);
+                }
+            }
+        }
+
+        final View currentView = layoutManager.getPageView(0);
+        if (mFlipQuality != FLIP_QUALITY_FULL && currentView != null) {
+            mFlippingPageSnapshots.get(currentView, layoutManager.getPosition(currentView), currentPosition);
+        }
+    }
+
+    private void schedulePrerender() {
+        if (mPrerenderMode == PRERENDER_NONE || mPrerenderScheduled) {
+            return;
+        }
+
+        FlipLayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null || layoutManager.isScrolling() || layoutManager.requiresSettling()) {
+            return;
+        }
+
+        mPrerenderScheduled = true;
+        Looper.myQueue().addIdleHandler(mPrerender);
+    }
+
+    private void prerenderPages() {
+        FlipLayoutManager layoutManager = getLayoutManager();
+        if (mPrerenderMode == PRERENDER_NONE || layoutManager == null
+                || layoutManager.isScrolling() || layoutManager.requiresSettling()) {
+            return;
+        }
+
+        final int currentPosition = layoutManager.getCurrentPosition();
+        for (int offset = -1; offset <= 1; offset++) {
+            final View view = layoutManager.getPageView(offset);
+            if (view != null) {
+                mPrerenderedPages.record(view, layoutManager.getPosition(view), currentPosition);
+            }
+        }
+    }
+
     @Override
     public void onPositionChange(FlipLayoutManager layoutManager, int position) {
+        mBitmapPool.setCurrentPosition(position);
+
         if (mPositionChangeListeners == null) {
             return;
         }
 
-        for (OnPositionChangeListener listener : mPositionChangeListeners) {
-            listener.onPositionChange(this, position);
+        for (int i = 0; i < mPositionChangeListeners.size(); i++) {
+            mPositionChangeListeners.get(i).onPositionChange(this, position);
         }
     }
 
@@ -254,15 +704,217 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
     public void onScrollStateChanged(int state) {
         super.onScrollStateChanged(state);
 
+        if (mFlipCoordinator != null) {
+            mFlipCoordinator.onFlipViewScrolled();
+        }
+
+        dispatchScrollStateChanged();
+    }
+
+    private void onFlipStateChanged(int state) {
+        dispatchScrollStateChanged();
+
         if (state != RecyclerView.SCROLL_STATE_IDLE) {
+            if (mFlipMetricsListeners != null && !mFlipMetricsListeners.isEmpty()) {
+                mMetricsTracker.start(getRefreshRate());
+            }
+
+            captureSnapshots();
             return;
         }
 
-        if (!getLayoutManager().requiresSettling()) {
+        mPageSnapshots.clear();
+        mFlippingPageSnapshots.clear();
+        mMetricsTracker.stop();
+    }
+
+    /**
+     * When enabled, the pages taking part in a flip are drawn once into bitmaps and the flip
+     * animates those bitmaps instead of redrawing each page's view tree on every frame.
+     * The snapshots are dropped once the flip settles.
+     */
+    public void setSnapshotFlipEnabled(boolean enabled) {
+        if (mSnapshotFlipEnabled == enabled) {
             return;
         }
 
-        smoothScrollToPosition(getLayoutManager().getCurrentPosition());
+        mSnapshotFlipEnabled = enabled;
+
+        if (!enabled) {
+            mPageSnapshots.clear();
+        }
+
+        invalidate();
+    }
+
+    public boolean isSnapshotFlipEnabled() {
+        return mSnapshotFlipEnabled;
+    }
+
+    /**
+     * Records the current page and its neighbours while the view is idle, so the first frames of a
+     * flip composite prepared content instead of drawing each page's view tree. Neighbours that
+     * aren't attached are recorded when the layout manager prefetches them, which requires item
+     * prefetch to be enabled.
+     * <p>
+     * {@link #PRERENDER_PICTURE} records pages into {@link android.graphics.Picture}s.
+     * {@link #PRERENDER_BITMAP} additionally rasterizes the recordings on a background thread and is
+     * meant for static pages. Either way a page is only re-recorded when the adapter notifies that
+     * its item changed, so pages that update their views without such a notification should not
+     * be prerendered.
+     *
+     * @param mode one of {@link #PRERENDER_NONE}, {@link #PRERENDER_PICTURE} or {@link #PRERENDER_BITMAP}
+     */
+    public void setPrerenderMode(int mode) {
+        if (mode != PRERENDER_NONE && mode != PRERENDER_PICTURE && mode != PRERENDER_BITMAP) {
+            throw new IllegalArgumentException("mode must be PRERENDER_NONE, PRERENDER_PICTURE or PRERENDER_BITMAP. mode is : " + mode);
+        }
+
+        if (mPrerenderMode == mode) {
+            return;
+        }
+
+        mPrerenderMode = mode;
+
+        if (getLayoutManager() != null) {
+            getLayoutManager().setPagePrefetchListener(mode != PRERENDER_NONE ? mPagePrefetchListener : null);
+        }
+
+        if (mode == PRERENDER_NONE) {
+            mPrerenderedPages.release();
+            return;
+        }
+
+        mPrerenderedPages.setRasterize(mode == PRERENDER_BITMAP);
+        schedulePrerender();
+    }
+
+    public int getPrerenderMode() {
+        return mPrerenderMode;
+    }
+
+    /**
+     * Sets the resolution the turning page is rendered at while a flip is in progress. Below
+     * {@link #FLIP_QUALITY_FULL} the page is drawn once into a buffer scaled down by the given
+     * factor and that buffer is stretched through the flip transform, trading some sharpness
+     * mid-flip for fill rate. Pages at rest are always drawn at full quality.
+     *
+     * @param quality one of {@link #FLIP_QUALITY_FULL}, {@link #FLIP_QUALITY_HALF} or {@link #FLIP_QUALITY_QUARTER}
+     */
+    public void setFlipQuality(int quality) {
+        if (quality != FLIP_QUALITY_FULL && quality != FLIP_QUALITY_HALF && quality != FLIP_QUALITY_QUARTER) {
+            throw new IllegalArgumentException("quality must be FLIP_QUALITY_FULL, FLIP_QUALITY_HALF or FLIP_QUALITY_QUARTER. quality is : " + quality);
+        }
+
+        if (mFlipQuality == quality) {
+            return;
+        }
+
+        mFlipQuality = quality;
+        mFlippingPageSnapshots.setScale(quality);
+        invalidate();
+    }
+
+    public int getFlipQuality() {
+        return mFlipQuality;
+    }
+
+    /**
+     * Caps the memory the page bitmaps of snapshots, flip quality buffers and
+     * {@link #PRERENDER_BITMAP} prerendering may take together, in bytes. Pages that don't fit are
+     * drawn live. Defaults to an eighth of the app's memory class, a sixteenth on low RAM devices.
+     */
+    public void setBitmapPoolMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize can't be less then 0. maxSize is : " + maxSize);
+        }
+
+        mBitmapPool.setSizeLimit(maxSize);
+    }
+
+    public long getBitmapPoolMaxSize() {
+        return mBitmapPool.getSizeLimit();
+    }
+
+    /**
+     * Returns the bytes the pooled page bitmaps take, idle or in use.
+     */
+    public long getBitmapPoolSize() {
+        return mBitmapPool.getSize();
+    }
+
+    /**
+     * Returns the number of page bitmaps served by reusing a pooled one.
+     */
+    public int getBitmapPoolHitCount() {
+        return mBitmapPool.getHitCount();
+    }
+
+    /**
+     * Returns the number of page bitmaps that had to be allocated, or didn't fit in the pool.
+     */
+    public int getBitmapPoolMissCount() {
+        return mBitmapPool.getMissCount();
+    }
+
+    public int getBitmapPoolEvictionCount() {
+        return mBitmapPool.getEvictionCount();
+    }
+
+    private static long getDefaultBitmapPoolMaxSize(Context context) {
+        final ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        final long memoryClass = activityManager.getMemoryClass() * 1024L * 1024L;
+        return ActivityManagerCompat.isLowRamDevice(activityManager) ? memoryClass / 16 : memoryClass / 8;
+    }
+
+    /**
+     * When enabled, a fling flips through a number of pages proportional to its velocity, up to
+     * {@link #setMaxFlingPages(int)}, as one continuous animation.
+     */
+    public void setFlingEnabled(boolean enabled) {
+        mFlingEnabled = enabled;
+    }
+
+    public boolean isFlingEnabled() {
+        return mFlingEnabled;
+    }
+
+    public void setMaxFlingPages(int maxFlingPages) {
+        if (maxFlingPages < 1) {
+            throw new IllegalArgumentException("maxFlingPages can't be less then 1. maxFlingPages is : " + maxFlingPages);
+        }
+
+        mMaxFlingPages = maxFlingPages;
+    }
+
+    public int getMaxFlingPages() {
+        return mMaxFlingPages;
+    }
+
+    private boolean isFlipping() {
+        FlipLayoutManager layoutManager = getLayoutManager();
+        return layoutManager != null && (layoutManager.isScrolling() || layoutManager.requiresSettling());
+    }
+
+    private float getRefreshRate() {
+        final WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        return windowManager.getDefaultDisplay().getRefreshRate();
+    }
+
+    public void addOnFlipMetricsListener(OnFlipMetricsListener listener) {
+        if (mFlipMetricsListeners == null) {
+            mFlipMetricsListeners = new ArrayList<>();
+        }
+
+        mFlipMetricsListeners.add(listener);
+    }
+
+    public void removeOnFlipMetricsListener(OnFlipMetricsListener listener) {
+        if (mFlipMetricsListeners == null) {
+            return;
+        }
+
+        mFlipMetricsListeners.remove(listener);
     }
 
     public void addOnPositionChangeListener(OnPositionChangeListener listener) {
@@ -292,4 +944,8 @@ public class FlipView extends RecyclerView implements OnPositionChangeListener {
     public interface OnPositionChangeListener {
         void onPositionChange(FlipView flipView, int position);
     }
+
+    public interface OnFlipMetricsListener {
+        void onFlipMetrics(FlipView flipView, FlipMetrics metrics);
+    }
 }
@@ -0,0 +1,283 @@
+package net.gregbeaty.flipview;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded pool of the bitmaps {@link FlipView} caches pages in. Released buffers are kept for reuse
+ * as long as they match the current page size. The pool holds at most as many bytes as the page
+ * slots of its caches take at the current page size, counting buffers in use, and never more than
+ * the size limit set for the device. When a new buffer doesn't fit, idle buffers that last held
+ * the pages farthest from the current page are evicted first, the least recently used among equally
+ * far ones; buffers in use are only evicted by {@link #clear()}, so a flip never loses a page it is
+ * drawing.
+ * <p>
+ * Evicted bitmaps are not recycled, as they may still be referenced by a frame that is being
+ * rendered; they are left to the garbage collector.
+ */
+final class PageBitmapPool {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final List<Entry> mEntries = new ArrayList<>();
+    private float mPageSlots;
+    private long mSizeLimit = Long.MAX_VALUE;
+    private long mMaxSize;
+    private long mSize;
+    private long mClock;
+    private int mPageWidth;
+    private int mPageHeight;
+    private int mPageSizeGeneration;
+    private int mCurrentPosition;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    interface Owner {
+        void onBitmapEvicted(Bitmap bitmap);
+    }
+
+    /**
+     * Makes room for {@code count} more buffers captured at 1 / scale of the page size in each
+     * dimension. Called by the caches for the slots they hold bitmaps in.
+     */
+    void addPageSlots(int count, int scale) {
+        mPageSlots += (float) count / (scale * scale);
+        updateMaxSize();
+    }
+
+    void removePageSlots(int count, int scale) {
+        mPageSlots -= (float) count / (scale * scale);
+        updateMaxSize();
+    }
+
+    /**
+     * Caps the pool at {@code sizeLimit} bytes, below what its page slots would take.
+     */
+    void setSizeLimit(long sizeLimit) {
+        mSizeLimit = sizeLimit;
+        updateMaxSize();
+    }
+
+    long getSizeLimit() {
+        return mSizeLimit;
+    }
+
+    long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * The page the view shows; idle buffers that last held pages far from it are evicted first.
+     */
+    void setCurrentPosition(int position) {
+        mCurrentPosition = position;
+    }
+
+    long getSize() {
+        return mSize;
+    }
+
+    /**
+     * Number of requests served by reusing a pooled buffer.
+     */
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Number of requests that had to allocate a new buffer, or could not be served within the
+     * maximum size.
+     */
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Releases buffers according to the level passed to
+     * {@link ComponentCallbacks2#onTrimMemory(int)}. While {@code inUse} is set, e.g. during a
+     * flip, only idle buffers are released.
+     */
+    void trimMemory(int level, boolean inUse) {
+        if (!inUse && (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            evictIdle();
+        }
+    }
+
+    /**
+     * Evicts every buffer, including the ones in use.
+     */
+    void clear() {
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            final Entry entry = mEntries.get(i);
+
+            remove(i);
+            mEvictionCount++;
+
+            if (entry.owner != null) {
+                entry.owner.onBitmapEvicted(entry.bitmap);
+            }
+        }
+    }
+
+    /**
+     * Pooled buffers are sized for the page size of the last layout; buffers allocated for a
+     * different page size are dropped instead of being pooled again.
+     */
+    void setPageSize(int width, int height) {
+        if (mPageWidth == width && mPageHeight == height) {
+            return;
+        }
+
+        mPageWidth = width;
+        mPageHeight = height;
+        mPageSizeGeneration++;
+        evictIdle();
+        updateMaxSize();
+    }
+
+    private void updateMaxSize() {
+        mMaxSize = Math.min((long) Math.ceil(mPageSlots * mPageWidth * mPageHeight * BYTES_PER_PIXEL), mSizeLimit);
+        trimIdleToSize(mMaxSize);
+    }
+
+    @Nullable
+    Bitmap acquire(int width, int height, Owner owner) {
+        Entry idle = null;
+        for (int i = 0; i < mEntries.size(); i++) {
+            final Entry entry = mEntries.get(i);
+            if (entry.owner == null && entry.bitmap.getWidth() == width && entry.bitmap.getHeight() == height
+                    && (idle == null || entry.lastUsed > idle.lastUsed)) {
+                idle = entry;
+            }
+        }
+
+        if (idle != null) {
+            mHitCount++;
+            idle.owner = owner;
+            return idle.bitmap;
+        }
+
+        mMissCount++;
+
+        final long size = (long) width * height * BYTES_PER_PIXEL;
+        trimIdleToSize(mMaxSize - size);
+        if (mSize + size > mMaxSize) {
+            return null;
+        }
+
+        final Entry entry = new Entry();
+        entry.bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        entry.size = size;
+        entry.owner = owner;
+        entry.pageSizeGeneration = mPageSizeGeneration;
+        mEntries.add(entry);
+        mSize += size;
+
+        return entry.bitmap;
+    }
+
+    /**
+     * Returns a buffer to the pool. {@code position} is the page it last held, or
+     * {@link RecyclerView#NO_POSITION} if it held none.
+     */
+    void release(Bitmap bitmap, int position) {
+        final int index = indexOf(bitmap);
+        if (index == -1) {
+            return;
+        }
+
+        final Entry entry = mEntries.get(index);
+        if (entry.pageSizeGeneration != mPageSizeGeneration) {
+            remove(index);
+            return;
+        }
+
+        entry.owner = null;
+        entry.position = position;
+        entry.lastUsed = ++mClock;
+    }
+
+    private void evictIdle() {
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            if (mEntries.get(i).owner == null) {
+                remove(i);
+                mEvictionCount++;
+            }
+        }
+    }
+
+    private void trimIdleToSize(long maxSize) {
+        while (mSize > maxSize) {
+            final int index = findEvictableIdle();
+            if (index == -1) {
+                return;
+            }
+
+            remove(index);
+            mEvictionCount++;
+        }
+    }
+
+    private int findEvictableIdle() {
+        int evictable = -1;
+        long evictableDistance = 0;
+        for (int i = 0; i < mEntries.size(); i++) {
+            final Entry entry = mEntries.get(i);
+            if (entry.owner != null) {
+                continue;
+            }
+
+            final long distance = getDistance(entry);
+            if (evictable == -1 || distance > evictableDistance
+                    || (distance == evictableDistance && entry.lastUsed < mEntries.get(evictable).lastUsed)) {
+                evictable = i;
+                evictableDistance = distance;
+            }
+        }
+
+        return evictable;
+    }
+
+    private long getDistance(Entry entry) {
+        if (entry.position == RecyclerView.NO_POSITION) {
+            return Long.MAX_VALUE;
+        }
+
+        return Math.abs((long) entry.position - mCurrentPosition);
+    }
+
+    private int indexOf(Bitmap bitmap) {
+        for (int i = 0; i < mEntries.size(); i++) {
+            if (mEntries.get(i).bitmap == bitmap) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void remove(int index) {
+        mSize -= mEntries.remove(index).size;
+    }
+
+    private static class Entry {
+        Bitmap bitmap;
+        long size;
+        long lastUsed;
+        int position = RecyclerView.NO_POSITION;
+        int pageSizeGeneration;
+        Owner owner;
+    }
+}
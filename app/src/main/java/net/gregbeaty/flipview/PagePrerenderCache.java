@@ -0,0 +1,318 @@
+package net.gregbeaty.flipview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.os.TraceCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Holds the pages around the current one recorded ahead of a flip, so the first frames of a flip
+ * only have to composite content instead of walking each page's view tree. Pages are recorded into
+ * {@link Picture}s on the main thread and can additionally be rasterized into bitmaps on a worker
+ * thread.
+ */
+class PagePrerenderCache implements PageBitmapPool.Owner {
+    private static final int MAX_PAGES = 3;
+    private static final String TRACE_RECORD_TAG = "FlipView Prerender";
+    private static final String RASTER_THREAD_NAME = "FlipView Prerender";
+
+    private final Page[] mPages = new Page[MAX_PAGES];
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Canvas mRasterCanvas = new Canvas();
+    private final PageBitmapPool mBitmapPool;
+    private HandlerThread mRasterThread;
+    private Handler mRasterHandler;
+    private boolean mRasterThreadQuitPending;
+    private boolean mRasterize;
+
+    PagePrerenderCache(PageBitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
+        mBitmapPool.addPageSlots(MAX_PAGES, 1);
+
+        for (int i = 0; i < MAX_PAGES; i++) {
+            mPages[i] = new Page();
+        }
+    }
+
+    void setRasterize(boolean rasterize) {
+        if (mRasterize == rasterize) {
+            return;
+        }
+
+        mRasterize = rasterize;
+        clear();
+    }
+
+    void record(View view, int position, int currentPosition) {
+        final int width = view.getWidth();
+        final int height = view.getHeight();
+        if (width == 0 || height == 0) {
+            return;
+        }
+
+        Page page = find(position);
+        if (page != null && page.width == width && page.height == height) {
+            return;
+        }
+
+        if (page == null) {
+            page = obtain(currentPosition);
+        }
+
+        TraceCompat.beginSection(TRACE_RECORD_TAG);
+
+        reset(page);
+
+        // The picture is recorded again in place, unless the worker is still rasterizing it.
+        if (page.picture == null || page.rasterizing) {
+            page.picture = new Picture();
+        }
+
+        view.draw(page.picture.beginRecording(width, height));
+        page.picture.endRecording();
+
+        page.position = position;
+        page.width = width;
+        page.height = height;
+
+        if (mRasterize) {
+            rasterize(page);
+        }
+
+        TraceCompat.endSection();
+    }
+
+    /**
+     * Draws the prerendered content for the page at {@code position} in place of {@code view}.
+     *
+     * @return false if there is no usable content for the page and it has to be drawn live
+     */
+    boolean draw(Canvas canvas, View view, int position, Paint paint) {
+        final Page page = find(position);
+        if (page == null || page.width != view.getWidth() || page.height != view.getHeight()) {
+            return false;
+        }
+
+        if (page.bitmap != null) {
+            canvas.drawBitmap(page.bitmap, view.getLeft(), view.getTop(), paint);
+            return true;
+        }
+
+        if (!canDrawPicture(canvas)) {
+            return false;
+        }
+
+        canvas.save();
+        canvas.translate(view.getLeft(), view.getTop());
+        canvas.drawPicture(page.picture);
+        canvas.restore();
+        return true;
+    }
+
+    void invalidate(int positionStart, int itemCount) {
+        for (Page page : mPages) {
+            if (page.position >= positionStart && page.position < positionStart + itemCount) {
+                reset(page);
+            }
+        }
+    }
+
+    void clear() {
+        for (Page page : mPages) {
+            reset(page);
+        }
+    }
+
+    /**
+     * Clears every page and drops the recordings. The worker thread quits once it has finished
+     * the rasterizations in flight.
+     */
+    void release() {
+        clear();
+
+        for (Page page : mPages) {
+            page.picture = null;
+        }
+
+        mRasterThreadQuitPending = true;
+        quitRasterThreadIfIdle();
+    }
+
+    private void quitRasterThreadIfIdle() {
+        if (!mRasterThreadQuitPending || mRasterThread == null) {
+            return;
+        }
+
+        for (Page page : mPages) {
+            if (page.rasterizing) {
+                return;
+            }
+        }
+
+        mRasterThreadQuitPending = false;
+        mRasterThread.quit();
+        mRasterThread = null;
+        mRasterHandler = null;
+    }
+
+    private static boolean canDrawPicture(Canvas canvas) {
+        // Hardware accelerated canvases only support pictures from M onwards.
+        return !canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    @Override
+    public void onBitmapEvicted(Bitmap bitmap) {
+        for (Page page : mPages) {
+            if (page.bitmap == bitmap) {
+                page.bitmap = null;
+            }
+
+            if (page.pendingBitmap == bitmap) {
+                page.pendingBitmap = null;
+            }
+        }
+    }
+
+    /**
+     * Rasterizes the page's recording on the worker thread. A page re-recorded while its previous
+     * recording is still being rasterized is rasterized again once that is done.
+     */
+    private void rasterize(Page page) {
+        if (page.rasterizing) {
+            page.rasterizeAgain = true;
+            return;
+        }
+
+        final Bitmap bitmap = mBitmapPool.acquire(page.width, page.height, this);
+        if (bitmap == null) {
+            return;
+        }
+
+        page.pendingBitmap = bitmap;
+        page.rasterBitmap = bitmap;
+        page.rasterPicture = page.picture;
+        page.rasterizing = true;
+
+        mRasterThreadQuitPending = false;
+        if (mRasterHandler == null) {
+            mRasterThread = new HandlerThread(RASTER_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            mRasterThread.start();
+            mRasterHandler = new Handler(mRasterThread.getLooper());
+        }
+
+        mRasterHandler.post(page.rasterTask);
+    }
+
+    /**
+     * Runs on the worker thread. The canvas is only ever used there.
+     */
+    private void drawRaster(Page page) {
+        page.rasterBitmap.eraseColor(Color.TRANSPARENT);
+        mRasterCanvas.setBitmap(page.rasterBitmap);
+        page.rasterPicture.draw(mRasterCanvas);
+        mRasterCanvas.setBitmap(null);
+
+        mMainHandler.post(page.publishTask);
+    }
+
+    private void publishRaster(Page page) {
+        final Bitmap bitmap = page.rasterBitmap;
+        page.rasterBitmap = null;
+        page.rasterPicture = null;
+        page.rasterizing = false;
+
+        // The page was reset or re-recorded while this bitmap was being drawn.
+        if (page.pendingBitmap != bitmap) {
+            mBitmapPool.release(bitmap, RecyclerView.NO_POSITION);
+        } else {
+            page.pendingBitmap = null;
+            page.bitmap = bitmap;
+        }
+
+        if (page.rasterizeAgain) {
+            page.rasterizeAgain = false;
+
+            if (mRasterize && page.position != RecyclerView.NO_POSITION && page.bitmap == null) {
+                rasterize(page);
+            }
+        }
+
+        quitRasterThreadIfIdle();
+    }
+
+    private Page find(int position) {
+        for (Page page : mPages) {
+            if (page.position == position) {
+                return page;
+            }
+        }
+
+        return null;
+    }
+
+    private Page obtain(int currentPosition) {
+        Page farthest = null;
+        for (Page page : mPages) {
+            if (page.position == RecyclerView.NO_POSITION) {
+                return page;
+            }
+
+            if (farthest == null || Math.abs(page.position - currentPosition) > Math.abs(farthest.position - currentPosition)) {
+                farthest = page;
+            }
+        }
+
+        return farthest;
+    }
+
+    private void reset(Page page) {
+        // A bitmap still being rasterized is returned to the pool once the worker is done with it.
+        page.pendingBitmap = null;
+
+        if (page.bitmap != null) {
+            mBitmapPool.release(page.bitmap, page.position);
+            page.bitmap = null;
+        }
+
+        page.position = RecyclerView.NO_POSITION;
+        page.width = 0;
+        page.height = 0;
+        page.rasterizeAgain = false;
+    }
+
+    private class Page {
+        int position = RecyclerView.NO_POSITION;
+        int width;
+        int height;
+        Picture picture;
+        Bitmap bitmap;
+        Bitmap pendingBitmap;
+        boolean rasterizing;
+        boolean rasterizeAgain;
+        Bitmap rasterBitmap;
+        Picture rasterPicture;
+
+        final Runnable rasterTask = new Runnable() {
+            @Override
+            public void run() {
+                drawRaster(Page.this);
+            }
+        };
+
+        final Runnable publishTask = new Runnable() {
+            @Override
+            public void run() {
+                publishRaster(Page.this);
+            }
+        };
+    }
+}
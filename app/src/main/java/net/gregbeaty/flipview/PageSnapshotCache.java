@@ -0,0 +1,171 @@
+package net.gregbeaty.flipview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.annotation.Nullable;
+import android.support.v4.os.TraceCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+class PageSnapshotCache implements PageBitmapPool.Owner {
+    private static final int MAX_SNAPSHOTS = 3;
+    private static final String TRACE_CAPTURE_TAG = "FlipView Snapshot";
+
+    private final Snapshot[] mSnapshots = new Snapshot[MAX_SNAPSHOTS];
+    private final Canvas mCanvas = new Canvas();
+    private final PageBitmapPool mBitmapPool;
+    private int mScale = 1;
+
+    PageSnapshotCache(PageBitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
+        mBitmapPool.addPageSlots(MAX_SNAPSHOTS, mScale);
+
+        for (int i = 0; i < MAX_SNAPSHOTS; i++) {
+            mSnapshots[i] = new Snapshot();
+        }
+    }
+
+    @Nullable
+    Bitmap get(View view, int position, int currentPosition) {
+        Snapshot snapshot = find(position);
+        if (snapshot != null && !snapshot.stale) {
+            return snapshot.bitmap;
+        }
+
+        if (view.getWidth() == 0 || view.getHeight() == 0) {
+            return null;
+        }
+
+        if (snapshot == null) {
+            snapshot = obtain(currentPosition);
+        }
+
+        capture(snapshot, view, position);
+        return snapshot.bitmap;
+    }
+
+    /**
+     * Marks the snapshots of the given positions as out of date. They keep being used and are
+     * recaptured into the same bitmap the next time they are drawn, so a page changing mid-flip
+     * doesn't cost a new bitmap.
+     */
+    void invalidate(int positionStart, int itemCount) {
+        for (Snapshot snapshot : mSnapshots) {
+            if (snapshot.position >= positionStart && snapshot.position < positionStart + itemCount) {
+                snapshot.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Snapshots are captured at 1 / scale of the page size in each dimension. Changing the scale
+     * drops every snapshot taken at the previous scale.
+     */
+    void setScale(int scale) {
+        if (mScale == scale) {
+            return;
+        }
+
+        clear();
+        mBitmapPool.removePageSlots(MAX_SNAPSHOTS, mScale);
+        mScale = scale;
+        mBitmapPool.addPageSlots(MAX_SNAPSHOTS, mScale);
+    }
+
+    int getScale() {
+        return mScale;
+    }
+
+    void clear() {
+        for (Snapshot snapshot : mSnapshots) {
+            if (snapshot.bitmap != null) {
+                mBitmapPool.release(snapshot.bitmap, snapshot.position);
+                snapshot.bitmap = null;
+            }
+
+            snapshot.position = RecyclerView.NO_POSITION;
+            snapshot.stale = false;
+        }
+    }
+
+    @Override
+    public void onBitmapEvicted(Bitmap bitmap) {
+        for (Snapshot snapshot : mSnapshots) {
+            if (snapshot.bitmap == bitmap) {
+                snapshot.position = RecyclerView.NO_POSITION;
+                snapshot.stale = false;
+                snapshot.bitmap = null;
+            }
+        }
+    }
+
+    private Snapshot find(int position) {
+        for (Snapshot snapshot : mSnapshots) {
+            if (snapshot.position == position) {
+                return snapshot;
+            }
+        }
+
+        return null;
+    }
+
+    private Snapshot obtain(int currentPosition) {
+        Snapshot farthest = null;
+        for (Snapshot snapshot : mSnapshots) {
+            if (snapshot.position == RecyclerView.NO_POSITION) {
+                return snapshot;
+            }
+
+            if (farthest == null || Math.abs(snapshot.position - currentPosition) > Math.abs(farthest.position - currentPosition)) {
+                farthest = snapshot;
+            }
+        }
+
+        return farthest;
+    }
+
+    private void capture(Snapshot snapshot, View view, int position) {
+        TraceCompat.beginSection(TRACE_CAPTURE_TAG);
+
+        final int width = Math.max(1, view.getWidth() / mScale);
+        final int height = Math.max(1, view.getHeight() / mScale);
+
+        Bitmap bitmap = snapshot.bitmap;
+        if (bitmap == null || snapshot.position != position || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            if (bitmap != null) {
+                mBitmapPool.release(bitmap, snapshot.position);
+                snapshot.bitmap = null;
+            }
+
+            snapshot.position = RecyclerView.NO_POSITION;
+
+            bitmap = mBitmapPool.acquire(width, height, this);
+            if (bitmap == null) {
+                TraceCompat.endSection();
+                return;
+            }
+        }
+
+        bitmap.eraseColor(Color.TRANSPARENT);
+
+        mCanvas.setBitmap(bitmap);
+        mCanvas.save();
+        mCanvas.scale(1f / mScale, 1f / mScale);
+        view.draw(mCanvas);
+        mCanvas.restore();
+        mCanvas.setBitmap(null);
+
+        snapshot.bitmap = bitmap;
+        snapshot.position = position;
+        snapshot.stale = false;
+
+        TraceCompat.endSection();
+    }
+
+    private static class Snapshot {
+        int position = RecyclerView.NO_POSITION;
+        boolean stale;
+        Bitmap bitmap;
+    }
+}
@@ -0,0 +1,187 @@
+package net.gregbeaty.flipview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class FlipCoordinatorTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final long FRAME_INTERVAL_NANOS = 16666667L;
+    private static final int MAX_FRAMES = 600;
+
+    private TestFrameScheduler mFrameScheduler;
+    private FlipCoordinator mCoordinator;
+    private FlipView mFirstView;
+    private FlipView mSecondView;
+    private long mFrameTimeNanos;
+
+    @Before
+    public void setUp() throws Exception {
+        mFrameScheduler = new TestFrameScheduler();
+        mCoordinator = new FlipCoordinator(mFrameScheduler);
+        mFirstView = createFlipView(100);
+        mSecondView = createFlipView(10);
+
+        mCoordinator.addFlipView(mFirstView);
+        mCoordinator.addFlipView(mSecondView);
+        runFrames();
+    }
+
+    @Test
+    public void followerFollowsLeaderWithinPage() throws Exception {
+        mFirstView.scrollBy(0, 30);
+        runFrames();
+
+        assertEquals(0, mSecondView.getLayoutManager().getCurrentPosition());
+        assertEquals(30, mSecondView.getLayoutManager().getPageOffset());
+    }
+
+    @Test
+    public void scrollToPositionOnFollowerTakesLead() throws Exception {
+        mSecondView.scrollToPosition(5);
+        runFrames();
+
+        assertEquals(5, mFirstView.getLayoutManager().getCurrentPosition());
+        assertEquals(5, mSecondView.getLayoutManager().getCurrentPosition());
+
+        mFirstView.scrollToPosition(3);
+        runFrames();
+
+        assertEquals(3, mFirstView.getLayoutManager().getCurrentPosition());
+        assertEquals(3, mSecondView.getLayoutManager().getCurrentPosition());
+    }
+
+    @Test
+    public void smoothScrollOnFollowerTakesLead() throws Exception {
+        mSecondView.smoothScrollToPosition(2);
+        runFrames();
+
+        assertEquals(2, mFirstView.getLayoutManager().getCurrentPosition());
+        assertEquals(2, mSecondView.getLayoutManager().getCurrentPosition());
+        assertEquals(0, mFirstView.getLayoutManager().getPageOffset());
+    }
+
+    @Test
+    public void followerStopsOnItsLastPage() throws Exception {
+        mFirstView.scrollToPosition(50);
+        runFrames();
+
+        assertEquals(50, mFirstView.getLayoutManager().getCurrentPosition());
+        assertEquals(9, mSecondView.getLayoutManager().getCurrentPosition());
+        assertEquals(0, mSecondView.getLayoutManager().getPageOffset());
+    }
+
+    @Test
+    public void followerMovesStraightToFarTarget() throws Exception {
+        mFirstView.scrollToPosition(7);
+        runFrames();
+
+        final FlipLayoutManager layoutManager = mSecondView.getLayoutManager();
+        assertEquals(7, layoutManager.getCurrentPosition());
+        assertNotNull(layoutManager.findViewByPosition(7));
+        assertEquals(1, layoutManager.getChildCount());
+    }
+
+    @Test
+    public void followerMirrorsFarJumpFlip() throws Exception {
+        final FlipLayoutManager leader = mFirstView.getLayoutManager();
+        final FlipLayoutManager follower = mSecondView.getLayoutManager();
+        leader.setJumpFlipEnabled(true);
+
+        final List<Integer> states = new ArrayList<>();
+        mSecondView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                states.add(newState);
+            }
+        });
+
+        mFirstView.smoothScrollToPosition(7);
+        for (int i = 0; i < 3; i++) {
+            runFrame();
+        }
+
+        assertTrue(leader.isJumping());
+        assertTrue(follower.isJumping());
+        assertEquals(leader.getCurrentPosition(), follower.getCurrentPosition());
+        assertEquals(leader.getPageOffset(), follower.getPageOffset());
+        assertEquals(RecyclerView.SCROLL_STATE_SETTLING, mSecondView.getScrollState());
+
+        int frames = 0;
+        while (mFrameScheduler.pending != null && frames < MAX_FRAMES) {
+            runFrame();
+            frames++;
+
+            assertEquals(leader.getCurrentPosition(), follower.getCurrentPosition());
+            assertEquals(leader.getPageOffset(), follower.getPageOffset());
+            for (int i = 0; i < follower.getChildCount(); i++) {
+                final int position = follower.getPosition(follower.getChildAt(i));
+                assertTrue("page " + position + " is between the jump's pages", position == 0 || position == 7);
+            }
+        }
+
+        assertFalse(follower.isJumping());
+        assertEquals(7, follower.getCurrentPosition());
+        assertEquals(0, follower.getPageOffset());
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, mSecondView.getScrollState());
+        assertEquals(Arrays.asList(RecyclerView.SCROLL_STATE_SETTLING, RecyclerView.SCROLL_STATE_IDLE), states);
+    }
+
+    private FlipView createFlipView(int itemCount) {
+        final FlipView flipView = new FlipView(RuntimeEnvironment.application);
+        final FlipLayoutManager layoutManager = new FlipLayoutManager(FlipLayoutManager.VERTICAL);
+        flipView.setLayoutManager(layoutManager);
+        flipView.setAdapter(new TestPageAdapter(itemCount));
+
+        // The view isn't attached to a window, so the layout manager is handed its RecyclerView
+        // directly.
+        layoutManager.onAttachedToWindow(flipView);
+        layout(flipView);
+        return flipView;
+    }
+
+    private static void layout(FlipView flipView) {
+        flipView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        flipView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Runs coordinator frames, each followed by a layout of both views, until no frame is pending.
+     */
+    private void runFrames() {
+        layout(mFirstView);
+        layout(mSecondView);
+
+        int frames = 0;
+        while (mFrameScheduler.pending != null && frames < MAX_FRAMES) {
+            runFrame();
+            frames++;
+        }
+    }
+
+    private void runFrame() {
+        mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+        mFrameScheduler.runFrame(mFrameTimeNanos);
+        layout(mFirstView);
+        layout(mSecondView);
+    }
+}
@@ -0,0 +1,60 @@
+package net.gregbeaty.flipview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlipDistanceTest {
+    private static final int LAST_POSITION = Integer.MAX_VALUE - 1;
+
+    @Test
+    public void lastPageOfLargestAdapterHasExactDistance() throws Exception {
+        assertEquals(386547056280L, FlipDistance.of(LAST_POSITION));
+        assertEquals(LAST_POSITION, FlipDistance.toPosition(FlipDistance.of(LAST_POSITION)));
+        assertEquals(0, FlipDistance.toOffset(FlipDistance.of(LAST_POSITION)));
+    }
+
+    @Test
+    public void positionAndOffsetRoundTripNearIntLimit() throws Exception {
+        final int[] positions = {0, 1, Integer.MAX_VALUE / FlipDistance.PER_POSITION, LAST_POSITION - 1, LAST_POSITION};
+        final int[] offsets = {-90, -1, 0, 1, 89};
+
+        for (int position : positions) {
+            for (int offset : offsets) {
+                final long distance = FlipDistance.of(position, offset);
+
+                assertEquals(position, FlipDistance.toPosition(distance));
+                assertEquals(offset, FlipDistance.toOffset(distance));
+            }
+        }
+    }
+
+    @Test
+    public void halfTurnedPageBelongsToNextPage() throws Exception {
+        assertEquals(LAST_POSITION, FlipDistance.toPosition(FlipDistance.of(LAST_POSITION - 1) + 90));
+        assertEquals(-90, FlipDistance.toOffset(FlipDistance.of(LAST_POSITION - 1) + 90));
+        assertEquals(LAST_POSITION - 1, FlipDistance.toPosition(FlipDistance.of(LAST_POSITION - 1) + 89));
+    }
+
+    @Test
+    public void overScrollBeforeFirstPageStaysOnFirstPage() throws Exception {
+        assertEquals(0, FlipDistance.toPosition(-70));
+        assertEquals(-70, FlipDistance.toOffset(-70));
+        assertEquals(-1, FlipDistance.toFloorPosition(-70));
+    }
+
+    @Test
+    public void floorPositionIsPageBeingTurned() throws Exception {
+        assertEquals(LAST_POSITION - 1, FlipDistance.toFloorPosition(FlipDistance.of(LAST_POSITION) - 1));
+        assertEquals(LAST_POSITION, FlipDistance.toFloorPosition(FlipDistance.of(LAST_POSITION)));
+        assertEquals(LAST_POSITION, FlipDistance.toFloorPosition(FlipDistance.of(LAST_POSITION) + 70));
+    }
+
+    @Test
+    public void angleCoversWholeTurn() throws Exception {
+        assertEquals(0, FlipDistance.toAngle(0));
+        assertEquals(89, FlipDistance.toAngle(89));
+        assertEquals(90, FlipDistance.toAngle(-90));
+        assertEquals(179, FlipDistance.toAngle(-1));
+    }
+}
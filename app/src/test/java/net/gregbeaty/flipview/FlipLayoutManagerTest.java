@@ -0,0 +1,758 @@
+package net.gregbeaty.flipview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class FlipLayoutManagerTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int ITEM_COUNT = 100;
+    private static final int LAST_POSITION = Integer.MAX_VALUE - 1;
+    private static final long FRAME_INTERVAL_NANOS = 16666667L;
+    private static final int MAX_FRAMES = 600;
+    private static final float ANGLE_DELTA = 0.0001f;
+
+    private FlipView mFlipView;
+    private FlipLayoutManager mLayoutManager;
+    private TestPageAdapter mAdapter;
+    private TestFrameScheduler mFrameScheduler;
+    private long mFrameTimeNanos;
+
+    @Before
+    public void setUp() throws Exception {
+        mFlipView = new FlipView(RuntimeEnvironment.application);
+        mLayoutManager = new FlipLayoutManager(FlipLayoutManager.VERTICAL);
+        mFlipView.setLayoutManager(mLayoutManager);
+        mFrameScheduler = new TestFrameScheduler();
+        mLayoutManager.setSettleFrameScheduler(mFrameScheduler);
+
+        // The view isn't attached to a window, so the layout manager is handed its RecyclerView
+        // directly.
+        mLayoutManager.onAttachedToWindow(mFlipView);
+        setAdapter(ITEM_COUNT);
+    }
+
+    @Test
+    public void scrollToLastPageOfLargestAdapter() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mLayoutManager.scrollToPosition(LAST_POSITION);
+        layout();
+
+        assertEquals(LAST_POSITION, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(LAST_POSITION), mLayoutManager.getLongScrollDistance());
+        assertEquals(Integer.MAX_VALUE, mLayoutManager.getScrollDistance());
+        assertNotNull(mLayoutManager.findViewByPosition(LAST_POSITION));
+    }
+
+    @Test
+    public void scrollWithinLastPageOfLargestAdapter() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mLayoutManager.scrollToPosition(LAST_POSITION);
+        layout();
+
+        mFlipView.scrollBy(0, -45);
+        assertEquals(LAST_POSITION, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(LAST_POSITION) - 45, mLayoutManager.getLongScrollDistance());
+        assertEquals(135, mLayoutManager.getAngle());
+
+        mFlipView.scrollBy(0, 45);
+        assertEquals(FlipDistance.of(LAST_POSITION), mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void offscreenPagesNextToLastPageOfLargestAdapter() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mLayoutManager.setOffscreenPageLimit(2);
+        mLayoutManager.scrollToPosition(LAST_POSITION);
+        layout();
+
+        assertEquals(3, mLayoutManager.getChildCount());
+        assertNotNull(mLayoutManager.findViewByPosition(LAST_POSITION));
+        assertNotNull(mLayoutManager.findViewByPosition(LAST_POSITION - 2));
+
+        mLayoutManager.scrollToPosition(LAST_POSITION - 1);
+        layout();
+
+        assertEquals(4, mLayoutManager.getChildCount());
+        assertNotNull(mLayoutManager.findViewByPosition(LAST_POSITION));
+        assertNotNull(mLayoutManager.findViewByPosition(LAST_POSITION - 3));
+    }
+
+    @Test
+    public void flingNextToLastPageOfLargestAdapterStopsOnLastPage() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mFlipView.setFlingEnabled(true);
+        mLayoutManager.scrollToPosition(LAST_POSITION - 1);
+        layout();
+
+        assertTrue(mFlipView.fling(0, mFlipView.getMaxFlingVelocity()));
+        runFrames();
+
+        assertEquals(LAST_POSITION, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(LAST_POSITION), mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void smoothScrollBeyondIntRangeReachesTarget() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mFlipView.smoothScrollToPosition(LAST_POSITION);
+        runFrames();
+
+        assertFalse(mLayoutManager.isScrolling());
+        assertEquals(LAST_POSITION, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(LAST_POSITION), mLayoutManager.getLongScrollDistance());
+        assertEquals(Integer.MAX_VALUE, mLayoutManager.getScrollDistance());
+    }
+
+    @Test
+    public void smoothScrollBackFromBeyondIntRangeReachesTarget() throws Exception {
+        setAdapter(Integer.MAX_VALUE);
+        mLayoutManager.scrollToPosition(LAST_POSITION);
+        layout();
+
+        mFlipView.smoothScrollToPosition(1);
+        runFrames();
+
+        assertEquals(1, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(1), mLayoutManager.getLongScrollDistance());
+        assertEquals(FlipDistance.of(1), mLayoutManager.getScrollDistance());
+    }
+
+    @Test
+    public void jumpFollowsPagesInsertedBeforeIt() throws Exception {
+        startJump(50);
+
+        mAdapter.insertPages(0, 5);
+        layout();
+        assertTrue(mLayoutManager.isJumping());
+
+        runFrames();
+        assertFalse(mLayoutManager.isJumping());
+        assertEquals(55, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(55), mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void jumpEndsOnSourceWhenTargetIsRemoved() throws Exception {
+        startJump(50);
+
+        mAdapter.removePages(50, 1);
+        layout();
+        runFrames();
+
+        assertFalse(mLayoutManager.isJumping());
+        assertFalse(mLayoutManager.isScrolling());
+        assertEquals(0, mLayoutManager.getCurrentPosition());
+        assertEquals(0, mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void jumpRestartsTowardsTargetThatBecameAdjacent() throws Exception {
+        startJump(3);
+
+        mAdapter.removePages(1, 2);
+        layout();
+        assertFalse(mLayoutManager.isJumping());
+
+        runFrames();
+        assertEquals(1, mLayoutManager.getCurrentPosition());
+        assertEquals(FlipDistance.of(1), mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void savedStateSurvivesParcel() throws Exception {
+        mLayoutManager.scrollToPosition(42);
+        layout();
+        mFlipView.scrollBy(0, 30);
+
+        final Parcelable state = parcel(mLayoutManager.onSaveInstanceState());
+        mLayoutManager.scrollToPosition(0);
+        layout();
+
+        mLayoutManager.onRestoreInstanceState(state);
+        layout();
+
+        assertEquals(42, mLayoutManager.getCurrentPosition());
+        assertEquals(30, mLayoutManager.getPageOffset());
+    }
+
+    @Test
+    public void restoredPositionIsClampedToItemCount() throws Exception {
+        mLayoutManager.scrollToPosition(90);
+        layout();
+        mFlipView.scrollBy(0, 30);
+
+        final Parcelable state = parcel(mLayoutManager.onSaveInstanceState());
+        setAdapter(50);
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        mLayoutManager.onRestoreInstanceState(state);
+        layout();
+
+        assertEquals(49, mLayoutManager.getCurrentPosition());
+        assertEquals(0, mLayoutManager.getPageOffset());
+    }
+
+    @Test
+    public void scrollToPositionReplacesPendingSavedState() throws Exception {
+        mLayoutManager.scrollToPosition(42);
+        layout();
+
+        final Parcelable state = parcel(mLayoutManager.onSaveInstanceState());
+        mLayoutManager.scrollToPosition(0);
+        layout();
+
+        mLayoutManager.onRestoreInstanceState(state);
+        mLayoutManager.scrollToPosition(7);
+        layout();
+
+        assertEquals(7, mLayoutManager.getCurrentPosition());
+    }
+
+    @Test
+    public void scrollToCurrentPositionDuringSettleEndsFlip() throws Exception {
+        mFlipView.smoothScrollToPosition(1);
+        for (int i = 0; i < 3; i++) {
+            mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+            mFrameScheduler.runFrame(mFrameTimeNanos);
+        }
+        assertTrue(mLayoutManager.requiresSettling());
+        assertEquals(0, mLayoutManager.getCurrentPosition());
+
+        mLayoutManager.scrollToPosition(0);
+        layout();
+
+        assertFalse(mLayoutManager.requiresSettling());
+        assertFalse(mLayoutManager.isScrolling());
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, mFlipView.getScrollState());
+        assertNull(mFrameScheduler.pending);
+        assertEquals(0, mLayoutManager.getLongScrollDistance());
+    }
+
+    @Test
+    public void currentPageFollowsPagesInsertedBeforeIt() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.insertPages(0, 5);
+        layout();
+
+        assertEquals(15, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(15));
+    }
+
+    @Test
+    public void currentPageStaysBeforePagesInsertedAfterIt() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.insertPages(11, 5);
+        layout();
+
+        assertEquals(10, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(10));
+    }
+
+    @Test
+    public void currentPageFollowsPagesRemovedBeforeIt() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.removePages(2, 5);
+        layout();
+
+        assertEquals(5, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(5));
+    }
+
+    @Test
+    public void currentPageStaysBeforePagesRemovedAfterIt() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        mAdapter.removePages(11, 5);
+        layout();
+
+        assertEquals(10, mLayoutManager.getCurrentPosition());
+    }
+
+    @Test
+    public void removedCurrentPageIsReplacedByNextPage() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        mFlipView.scrollBy(0, 30);
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.removePages(9, 2);
+        layout();
+
+        assertEquals(9, mLayoutManager.getCurrentPosition());
+        assertEquals(0, mLayoutManager.getPageOffset());
+        assertNotSame(view, mLayoutManager.findViewByPosition(9));
+        assertEquals(1, mLayoutManager.getChildCount());
+    }
+
+    @Test
+    public void currentPageFollowsItsMove() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.movePage(10, 2);
+        layout();
+
+        assertEquals(2, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(2));
+    }
+
+    @Test
+    public void currentPageFollowsPageMovedAcrossIt() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.movePage(3, 20);
+        layout();
+
+        assertEquals(9, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(9));
+    }
+
+    @Test
+    public void pagesInsertedIntoEmptyAdapterOpenOnFirstPage() throws Exception {
+        final FlipView flipView = new FlipView(RuntimeEnvironment.application);
+        final FlipLayoutManager layoutManager = new FlipLayoutManager(FlipLayoutManager.VERTICAL);
+        flipView.setLayoutManager(layoutManager);
+        layoutManager.onAttachedToWindow(flipView);
+        final TestPageAdapter adapter = new TestPageAdapter(0);
+        flipView.setAdapter(adapter);
+
+        adapter.insertPages(0, 5);
+        flipView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        flipView.layout(0, 0, WIDTH, HEIGHT);
+
+        assertEquals(0, layoutManager.getCurrentPosition());
+        assertNotNull(layoutManager.findViewByPosition(0));
+    }
+
+    @Test
+    public void pagesInsertedAfterEmptyingAdapterOpenOnFirstPage() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        mAdapter.removePages(0, ITEM_COUNT);
+        layout();
+        mAdapter.insertPages(0, 5);
+        layout();
+
+        assertEquals(0, mLayoutManager.getCurrentPosition());
+    }
+
+    @Test
+    public void stableIdsKeepAttachedPagesOnDataSetChange() throws Exception {
+        mAdapter = new TestPageAdapter(ITEM_COUNT) {
+            @Override
+            public long getItemId(int position) {
+                return position;
+            }
+        };
+        mAdapter.setHasStableIds(true);
+        mFlipView.setAdapter(mAdapter);
+        mLayoutManager.setOffscreenPageLimit(1);
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View previousView = mLayoutManager.findViewByPosition(9);
+        final View currentView = mLayoutManager.findViewByPosition(10);
+        final View nextView = mLayoutManager.findViewByPosition(11);
+
+        mAdapter.notifyDataSetChanged();
+        layout();
+
+        assertEquals(10, mLayoutManager.getCurrentPosition());
+        assertSame(previousView, mLayoutManager.findViewByPosition(9));
+        assertSame(currentView, mLayoutManager.findViewByPosition(10));
+        assertSame(nextView, mLayoutManager.findViewByPosition(11));
+    }
+
+    @Test
+    public void swappedAdapterSizesItsOwnPages() throws Exception {
+        final TestPageAdapter adapter = new TestPageAdapter(ITEM_COUNT);
+        adapter.setPageSize(WIDTH / 2, HEIGHT / 2);
+        mFlipView.setAdapter(adapter);
+        layout();
+
+        final View view = mLayoutManager.findViewByPosition(0);
+        assertEquals(WIDTH / 2, view.getWidth());
+        assertEquals(HEIGHT / 2, view.getHeight());
+    }
+
+    @Test
+    public void dataSetChangeSizesPagesAgain() throws Exception {
+        mAdapter.setPageSize(WIDTH / 2, HEIGHT / 2);
+        mAdapter.notifyDataSetChanged();
+        layout();
+
+        final View view = mLayoutManager.findViewByPosition(0);
+        assertEquals(WIDTH / 2, view.getWidth());
+        assertEquals(HEIGHT / 2, view.getHeight());
+    }
+
+    @Test
+    public void changedCurrentPageIsReboundInPlaceWithPayload() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+        final Object payload = new Object();
+        mAdapter.boundPositions.clear();
+
+        mAdapter.changePage(10, payload);
+        layout();
+
+        assertEquals(Collections.singletonList(10), mAdapter.boundPositions);
+        assertEquals(Collections.singletonList(payload), mAdapter.lastPayloads);
+        assertSame(view, mLayoutManager.findViewByPosition(10));
+        assertEquals(1, mLayoutManager.getChildCount());
+    }
+
+    @Test
+    public void backFlipAfterSettleReattachesCachedPageWithoutRebind() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mFlipView.smoothScrollToPosition(11);
+        runFrames();
+        assertEquals(11, mLayoutManager.getCurrentPosition());
+        assertNull(mLayoutManager.findViewByPosition(10));
+
+        mAdapter.boundPositions.clear();
+        mFlipView.smoothScrollToPosition(10);
+        runFrames();
+
+        assertEquals(10, mLayoutManager.getCurrentPosition());
+        assertSame(view, mLayoutManager.findViewByPosition(10));
+        assertFalse(mAdapter.boundPositions.contains(10));
+    }
+
+    @Test
+    public void subUnitDragsAddUpToOneDragOfTheirTotal() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+
+        for (int i = 0; i < 61; i++) {
+            mFlipView.scrollBy(0, 1);
+        }
+        final long distance = mLayoutManager.getLongScrollDistance();
+        final float angle = mLayoutManager.getExactAngle();
+
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        mFlipView.scrollBy(0, 61);
+
+        assertEquals(FlipDistance.of(10, 30), distance);
+        assertEquals(distance, mLayoutManager.getLongScrollDistance());
+        assertEquals(30.5f, angle, ANGLE_DELTA);
+        assertEquals(angle, mLayoutManager.getExactAngle(), ANGLE_DELTA);
+    }
+
+    @Test
+    public void exactAngleIsContinuousAcrossHalfTurn() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mFlipView.scrollBy(0, 160);
+        assertEquals(80f, mLayoutManager.getExactAngle(), ANGLE_DELTA);
+
+        float previousAngle = mLayoutManager.getExactAngle();
+        for (int i = 0; i < 40; i++) {
+            mFlipView.scrollBy(0, 1);
+            final float angle = mLayoutManager.getExactAngle();
+            assertTrue("angle went from " + previousAngle + " to " + angle, angle >= previousAngle && angle - previousAngle <= 1 + ANGLE_DELTA);
+            previousAngle = angle;
+        }
+        assertEquals(11, mLayoutManager.getCurrentPosition());
+        assertEquals(100f, previousAngle, ANGLE_DELTA);
+
+        for (int i = 0; i < 40; i++) {
+            mFlipView.scrollBy(0, -1);
+            final float angle = mLayoutManager.getExactAngle();
+            assertTrue("angle went from " + previousAngle + " to " + angle, angle <= previousAngle && previousAngle - angle <= 1 + ANGLE_DELTA);
+            previousAngle = angle;
+        }
+        assertEquals(10, mLayoutManager.getCurrentPosition());
+        assertEquals(80f, previousAngle, ANGLE_DELTA);
+    }
+
+    @Test
+    public void dragWithinPageBindsNothing() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        mFlipView.scrollBy(0, 10);
+        final View view = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.boundPositions.clear();
+        for (int i = 0; i < 20; i++) {
+            mFlipView.scrollBy(0, 2);
+        }
+
+        assertTrue(mAdapter.boundPositions.isEmpty());
+        assertSame(view, mLayoutManager.findViewByPosition(10));
+    }
+
+    @Test
+    public void movedWindowBindsOnlyPageEnteringIt() throws Exception {
+        mLayoutManager.setOffscreenPageLimit(1);
+        mLayoutManager.scrollToPosition(10);
+        layout();
+        final View previousView = mLayoutManager.findViewByPosition(10);
+        final View currentView = mLayoutManager.findViewByPosition(11);
+
+        mAdapter.boundPositions.clear();
+        mLayoutManager.scrollToPosition(11);
+        layout();
+
+        assertSame(previousView, mLayoutManager.findViewByPosition(10));
+        assertSame(currentView, mLayoutManager.findViewByPosition(11));
+        assertNotNull(mLayoutManager.findViewByPosition(12));
+        assertNull(mLayoutManager.findViewByPosition(9));
+        // The entering page may already be bound by the idle prefetch.
+        for (int position : mAdapter.boundPositions) {
+            assertEquals(12, position);
+        }
+    }
+
+    @Test
+    public void idlePrefetchesBothNeighbours() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        final PrefetchRecorder recorder = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, 0, state(ITEM_COUNT), recorder);
+
+        assertEquals(Arrays.asList(9, 11), recorder.positions);
+        assertEquals(Arrays.asList(180, 180), recorder.distances);
+    }
+
+    @Test
+    public void scrollPrefetchesPagesAhead() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        final PrefetchRecorder forward = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, 5, state(ITEM_COUNT), forward);
+        assertEquals(Arrays.asList(11, 12), forward.positions);
+        assertEquals(Arrays.asList(180, 360), forward.distances);
+
+        final PrefetchRecorder backward = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, -5, state(ITEM_COUNT), backward);
+        assertEquals(Arrays.asList(9, 8), backward.positions);
+        assertEquals(Arrays.asList(180, 360), backward.distances);
+    }
+
+    @Test
+    public void prefetchStopsAtAdapterEnds() throws Exception {
+        final PrefetchRecorder first = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, -5, state(ITEM_COUNT), first);
+        assertTrue(first.positions.isEmpty());
+
+        setAdapter(Integer.MAX_VALUE);
+        mLayoutManager.scrollToPosition(LAST_POSITION);
+        layout();
+
+        final PrefetchRecorder last = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, 5, state(Integer.MAX_VALUE), last);
+        assertTrue(last.positions.isEmpty());
+    }
+
+    @Test
+    public void jumpPrefetchesNothing() throws Exception {
+        startJump(50);
+
+        final PrefetchRecorder recorder = new PrefetchRecorder();
+        mLayoutManager.collectAdjacentPrefetchPositions(0, 5, state(ITEM_COUNT), recorder);
+
+        assertTrue(recorder.positions.isEmpty());
+    }
+
+    @Test
+    public void initialPrefetchCoversCurrentPageAndNeighbours() throws Exception {
+        mLayoutManager.scrollToPosition(10);
+        layout();
+
+        final PrefetchRecorder recorder = new PrefetchRecorder();
+        mLayoutManager.collectInitialPrefetchPositions(ITEM_COUNT, recorder);
+
+        assertEquals(Arrays.asList(10, 9, 11), recorder.positions);
+        assertEquals(Arrays.asList(0, 180, 180), recorder.distances);
+    }
+
+    @Test
+    public void touchMissedByCurrentPageDoesNotReachOffscreenPage() throws Exception {
+        mLayoutManager.setOffscreenPageLimit(1);
+        mLayoutManager.scrollToPosition(1);
+        layout();
+
+        final View currentView = mLayoutManager.findViewByPosition(1);
+        final View offscreenView = mLayoutManager.findViewByPosition(2);
+        assertNotNull(offscreenView);
+
+        final int[] currentTouches = new int[1];
+        currentView.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View v, MotionEvent e) {
+                currentTouches[0]++;
+                return false;
+            }
+        });
+
+        final int[] offscreenClicks = new int[1];
+        offscreenView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                offscreenClicks[0]++;
+            }
+        });
+
+        tap(WIDTH / 2, HEIGHT / 2);
+
+        assertEquals(1, currentTouches[0]);
+        assertEquals(0, offscreenClicks[0]);
+    }
+
+    @Test
+    public void offscreenPageGetsItsOwnStateBackWhenCurrent() throws Exception {
+        mLayoutManager.setOffscreenPageLimit(1);
+        layout();
+
+        final View view = mLayoutManager.findViewByPosition(0);
+        ViewCompat.setImportantForAccessibility(view, ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO);
+
+        mLayoutManager.scrollToPosition(1);
+        layout();
+        assertEquals(View.INVISIBLE, view.getVisibility());
+        assertEquals(ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS, ViewCompat.getImportantForAccessibility(view));
+
+        mFlipView.scrollBy(0, -30);
+        assertEquals(View.VISIBLE, view.getVisibility());
+
+        mLayoutManager.scrollToPosition(0);
+        layout();
+        assertEquals(View.VISIBLE, view.getVisibility());
+        assertEquals(ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO, ViewCompat.getImportantForAccessibility(view));
+    }
+
+    private void setAdapter(int itemCount) {
+        mAdapter = new TestPageAdapter(itemCount);
+        mFlipView.setAdapter(mAdapter);
+        layout();
+    }
+
+    /**
+     * Starts a jump flip from the first page to {@code position} and leaves it part way turned.
+     */
+    private void startJump(int position) {
+        mLayoutManager.setJumpFlipEnabled(true);
+        mFlipView.smoothScrollToPosition(position);
+
+        for (int i = 0; i < 3; i++) {
+            mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+            mFrameScheduler.runFrame(mFrameTimeNanos);
+        }
+
+        assertTrue(mLayoutManager.isJumping());
+        assertTrue(mLayoutManager.requiresSettling());
+    }
+
+    private static RecyclerView.State state(final int itemCount) {
+        return new RecyclerView.State() {
+            @Override
+            public int getItemCount() {
+                return itemCount;
+            }
+        };
+    }
+
+    private void tap(float x, float y) {
+        final long downTime = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+        final MotionEvent up = MotionEvent.obtain(downTime, downTime + 50, MotionEvent.ACTION_UP, x, y, 0);
+        mFlipView.dispatchTouchEvent(down);
+        mFlipView.dispatchTouchEvent(up);
+        down.recycle();
+        up.recycle();
+        Robolectric.flushForegroundThreadScheduler();
+    }
+
+    private static Parcelable parcel(Parcelable state) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return FlipLayoutManager.SavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private void layout() {
+        mFlipView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mFlipView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void runFrames() {
+        int frames = 0;
+        while (mFrameScheduler.pending != null && frames < MAX_FRAMES) {
+            mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+            mFrameScheduler.runFrame(mFrameTimeNanos);
+            frames++;
+        }
+
+        layout();
+    }
+
+    private static class PrefetchRecorder implements RecyclerView.LayoutManager.LayoutPrefetchRegistry {
+        final List<Integer> positions = new ArrayList<>();
+        final List<Integer> distances = new ArrayList<>();
+
+        @Override
+        public void addPosition(int layoutPosition, int pixelDistance) {
+            positions.add(layoutPosition);
+            distances.add(pixelDistance);
+        }
+    }
+}
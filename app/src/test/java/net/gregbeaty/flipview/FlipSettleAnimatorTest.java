@@ -0,0 +1,212 @@
+package net.gregbeaty.flipview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FlipSettleAnimatorTest {
+    private static final long FRAME_INTERVAL_NANOS = 16666667L;
+    private static final int MAX_FRAMES = 600;
+
+    private TestFrameScheduler mFrameScheduler;
+    private TestCallback mCallback;
+    private FlipSettleAnimator mAnimator;
+
+    @Before
+    public void setUp() throws Exception {
+        mFrameScheduler = new TestFrameScheduler();
+        mCallback = new TestCallback();
+        mAnimator = new FlipSettleAnimator(mCallback, mFrameScheduler);
+    }
+
+    @Test
+    public void settlesExactlyOnTarget() throws Exception {
+        mAnimator.animateTo(30, 180);
+        runFrames();
+
+        assertFalse(mAnimator.isRunning());
+        assertEquals(180, mCallback.distance);
+        assertEquals(1, mCallback.endCount);
+    }
+
+    @Test
+    public void stepsOncePerFrame() throws Exception {
+        mAnimator.animateTo(0, 180);
+        final int frames = runFrames();
+
+        assertEquals(frames, mCallback.steps.size());
+    }
+
+    @Test
+    public void movesMonotonicallyTowardsTarget() throws Exception {
+        mAnimator.animateTo(180, 0);
+        runFrames();
+
+        for (int i = 1; i < mCallback.steps.size(); i++) {
+            assertTrue(mCallback.steps.get(i) <= mCallback.steps.get(i - 1));
+        }
+    }
+
+    @Test
+    public void isDeterministicForTheSameFrames() throws Exception {
+        mAnimator.animateTo(0, 540);
+        runFrames();
+
+        final TestCallback otherCallback = new TestCallback();
+        final TestFrameScheduler otherScheduler = new TestFrameScheduler();
+        final FlipSettleAnimator other = new FlipSettleAnimator(otherCallback, otherScheduler);
+        other.animateTo(0, 540);
+
+        long frameTimeNanos = FRAME_INTERVAL_NANOS;
+        while (other.isRunning()) {
+            otherScheduler.runFrame(frameTimeNanos);
+            frameTimeNanos += FRAME_INTERVAL_NANOS;
+        }
+
+        assertEquals(mCallback.steps, otherCallback.steps);
+    }
+
+    @Test
+    public void retargetKeepsRunning() throws Exception {
+        mAnimator.animateTo(0, 180);
+        mFrameScheduler.runFrame(FRAME_INTERVAL_NANOS);
+        mFrameScheduler.runFrame(2 * FRAME_INTERVAL_NANOS);
+
+        mAnimator.animateTo(mCallback.distance, 360);
+        assertTrue(mAnimator.isRunning());
+
+        runFrames(3 * FRAME_INTERVAL_NANOS);
+        assertEquals(360, mCallback.distance);
+        assertEquals(1, mCallback.endCount);
+    }
+
+    @Test
+    public void offsetMovesTargetWithRunningAnimation() throws Exception {
+        mAnimator.animateTo(0, 180);
+        mFrameScheduler.runFrame(FRAME_INTERVAL_NANOS);
+        mFrameScheduler.runFrame(2 * FRAME_INTERVAL_NANOS);
+
+        final long distanceBeforeOffset = mCallback.distance;
+        mAnimator.offsetBy(540);
+        mCallback.distance += 540;
+        mFrameScheduler.runFrame(3 * FRAME_INTERVAL_NANOS);
+
+        assertTrue(mCallback.distance >= distanceBeforeOffset + 540);
+        runFrames(4 * FRAME_INTERVAL_NANOS);
+        assertEquals(720, mCallback.distance);
+    }
+
+    @Test
+    public void frameSchedulerChangeCarriesPendingFrame() throws Exception {
+        mAnimator.animateTo(0, 180);
+
+        final TestFrameScheduler otherScheduler = new TestFrameScheduler();
+        mAnimator.setFrameScheduler(otherScheduler);
+
+        assertNull(mFrameScheduler.pending);
+        assertSame(mAnimator, otherScheduler.pending);
+
+        long frameTimeNanos = FRAME_INTERVAL_NANOS;
+        while (mAnimator.isRunning()) {
+            otherScheduler.runFrame(frameTimeNanos);
+            frameTimeNanos += FRAME_INTERVAL_NANOS;
+        }
+
+        assertEquals(180, mCallback.distance);
+    }
+
+    @Test
+    public void cancelStopsWithoutEnding() throws Exception {
+        mAnimator.animateTo(0, 180);
+        mFrameScheduler.runFrame(FRAME_INTERVAL_NANOS);
+
+        mAnimator.cancel();
+
+        assertFalse(mAnimator.isRunning());
+        assertNull(mFrameScheduler.pending);
+        assertEquals(0, mCallback.endCount);
+    }
+
+    @Test
+    public void endsWhenDistanceCannotBeReached() throws Exception {
+        mCallback.maxDistance = 90;
+        mAnimator.animateTo(0, 180);
+        runFrames();
+
+        assertFalse(mAnimator.isRunning());
+        assertEquals(90, mCallback.distance);
+        assertEquals(1, mCallback.endCount);
+    }
+
+    @Test
+    public void settlesExactlyOnTargetBeyondIntRange() throws Exception {
+        final long target = FlipDistance.of(Integer.MAX_VALUE - 1);
+        mAnimator.animateTo(target - 90, target);
+        runFrames();
+
+        assertFalse(mAnimator.isRunning());
+        assertEquals(target, mCallback.distance);
+        assertEquals(1, mCallback.endCount);
+    }
+
+    @Test
+    public void velocityTowardsTargetSpeedsUpFirstFrames() throws Exception {
+        final TestCallback fastCallback = new TestCallback();
+        final TestFrameScheduler fastScheduler = new TestFrameScheduler();
+        final FlipSettleAnimator fast = new FlipSettleAnimator(fastCallback, fastScheduler);
+
+        mAnimator.animateTo(0, 1800);
+        fast.animateTo(0, 1800);
+        fast.setVelocity(5000);
+
+        for (int frame = 1; frame <= 3; frame++) {
+            mFrameScheduler.runFrame(frame * FRAME_INTERVAL_NANOS);
+            fastScheduler.runFrame(frame * FRAME_INTERVAL_NANOS);
+        }
+
+        assertTrue(fastCallback.distance > mCallback.distance);
+    }
+
+    private int runFrames() {
+        return runFrames(FRAME_INTERVAL_NANOS);
+    }
+
+    private int runFrames(long firstFrameTimeNanos) {
+        int frames = 0;
+        long frameTimeNanos = firstFrameTimeNanos;
+        while (mAnimator.isRunning() && frames < MAX_FRAMES) {
+            mFrameScheduler.runFrame(frameTimeNanos);
+            frameTimeNanos += FRAME_INTERVAL_NANOS;
+            frames++;
+        }
+
+        return frames;
+    }
+
+    private static class TestCallback implements FlipSettleAnimator.Callback {
+        final List<Long> steps = new ArrayList<>();
+        long distance;
+        long maxDistance = Long.MAX_VALUE;
+        int endCount;
+
+        @Override
+        public long onAnimationStep(long distance) {
+            steps.add(distance);
+            this.distance = Math.min(distance, maxDistance);
+            return this.distance;
+        }
+
+        @Override
+        public void onAnimationEnd() {
+            endCount++;
+        }
+    }
+}
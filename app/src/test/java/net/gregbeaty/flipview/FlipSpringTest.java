@@ -0,0 +1,100 @@
+package net.gregbeaty.flipview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlipSpringTest {
+    private static final double FRAME_SECONDS = 1 / 60.0;
+
+    @Test
+    public void criticallyDampedSpringSettlesWithoutOvershoot() throws Exception {
+        final FlipSpring spring = createSpring(0, 180);
+
+        double previous = spring.getValue();
+        for (int frame = 0; frame < 120; frame++) {
+            spring.step(FRAME_SECONDS);
+
+            assertTrue(spring.getValue() >= previous);
+            assertTrue(spring.getValue() <= 180);
+            previous = spring.getValue();
+        }
+
+        assertTrue(spring.isAtRest());
+        assertEquals(180, spring.getValue(), 0.5);
+    }
+
+    @Test
+    public void resultDoesNotDependOnFrameSplit() throws Exception {
+        final float[] dampingRatios = {0.5f, 1f, 2f};
+
+        for (float dampingRatio : dampingRatios) {
+            final FlipSpring perFrame = createSpring(0, 180);
+            perFrame.setDampingRatio(dampingRatio);
+            for (int frame = 0; frame < 30; frame++) {
+                perFrame.step(FRAME_SECONDS);
+            }
+
+            final FlipSpring singleStep = createSpring(0, 180);
+            singleStep.setDampingRatio(dampingRatio);
+            singleStep.step(30 * FRAME_SECONDS);
+
+            assertEquals(singleStep.getValue(), perFrame.getValue(), 1e-6);
+            assertEquals(singleStep.getVelocity(), perFrame.getVelocity(), 1e-6);
+        }
+    }
+
+    @Test
+    public void underdampedSpringOvershoots() throws Exception {
+        final FlipSpring spring = createSpring(0, 180);
+        spring.setDampingRatio(0.3f);
+
+        double max = spring.getValue();
+        for (int frame = 0; frame < 120; frame++) {
+            spring.step(FRAME_SECONDS);
+            max = Math.max(max, spring.getValue());
+        }
+
+        assertTrue(max > 180);
+    }
+
+    @Test
+    public void stifferSpringSettlesFaster() throws Exception {
+        final FlipSpring soft = createSpring(0, 180);
+        final FlipSpring stiff = createSpring(0, 180);
+        stiff.setStiffness(4 * FlipSpring.DEFAULT_STIFFNESS);
+
+        soft.step(0.1);
+        stiff.step(0.1);
+
+        assertTrue(stiff.getValue() > soft.getValue());
+    }
+
+    @Test
+    public void springWithVelocityIsNotAtRest() throws Exception {
+        final FlipSpring spring = createSpring(180, 180);
+        assertTrue(spring.isAtRest());
+
+        spring.setVelocity(100);
+        assertFalse(spring.isAtRest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveStiffness() throws Exception {
+        new FlipSpring().setStiffness(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeDampingRatio() throws Exception {
+        new FlipSpring().setDampingRatio(-1);
+    }
+
+    private static FlipSpring createSpring(double value, double target) {
+        final FlipSpring spring = new FlipSpring();
+        spring.setValue(value);
+        spring.setTarget(target);
+        return spring;
+    }
+}
@@ -0,0 +1,203 @@
+package net.gregbeaty.flipview;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class PageBitmapPoolTest {
+    private static final int PAGE_WIDTH = 10;
+    private static final int PAGE_HEIGHT = 10;
+    private static final int PAGE_BYTES = PAGE_WIDTH * PAGE_HEIGHT * 4;
+
+    private PageBitmapPool mPool;
+    private TestOwner mOwner;
+
+    @Before
+    public void setUp() throws Exception {
+        mPool = new PageBitmapPool();
+        mPool.addPageSlots(3, 1);
+        mPool.setPageSize(PAGE_WIDTH, PAGE_HEIGHT);
+        mOwner = new TestOwner();
+    }
+
+    @Test
+    public void maxSizeCoversPageSlots() throws Exception {
+        assertEquals(3 * PAGE_BYTES, mPool.getMaxSize());
+    }
+
+    @Test
+    public void releasedBufferIsReused() throws Exception {
+        final Bitmap bitmap = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(bitmap, 0);
+
+        assertSame(bitmap, mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+        assertEquals(1, mPool.getHitCount());
+        assertEquals(1, mPool.getMissCount());
+        assertEquals(PAGE_BYTES, mPool.getSize());
+    }
+
+    @Test
+    public void buffersInUseAreNeverEvicted() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+        }
+
+        assertNull(mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+        assertEquals(0, mPool.getEvictionCount());
+        assertEquals(4, mPool.getMissCount());
+        assertTrue(mOwner.evicted.isEmpty());
+    }
+
+    @Test
+    public void idleBufferIsEvictedWhenOverMaxSize() throws Exception {
+        final Bitmap first = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(first, 0);
+
+        // A buffer of another size can't reuse the idle one, so it takes its place.
+        assertNotNull(mPool.acquire(PAGE_WIDTH / 2, PAGE_HEIGHT / 2, mOwner));
+        assertEquals(1, mPool.getEvictionCount());
+        assertEquals(2 * PAGE_BYTES + PAGE_BYTES / 4, mPool.getSize());
+    }
+
+    @Test
+    public void idleBufferFarthestFromCurrentPageIsEvictedFirst() throws Exception {
+        // Same byte size, different shapes, so each acquire below can only reuse one of them.
+        final Bitmap near = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        final Bitmap nearer = mPool.acquire(PAGE_WIDTH * 2, PAGE_HEIGHT / 2, mOwner);
+        final Bitmap far = mPool.acquire(PAGE_WIDTH / 2, PAGE_HEIGHT * 2, mOwner);
+
+        mPool.setCurrentPosition(20);
+        mPool.release(near, 19);
+        mPool.release(nearer, 20);
+        mPool.release(far, 2);
+
+        mPool.acquire(PAGE_WIDTH / 2, PAGE_HEIGHT / 2, mOwner);
+
+        assertEquals(1, mPool.getEvictionCount());
+        assertSame(near, mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+        assertSame(nearer, mPool.acquire(PAGE_WIDTH * 2, PAGE_HEIGHT / 2, mOwner));
+    }
+
+    @Test
+    public void equallyFarIdleBuffersAreEvictedLeastRecentlyUsedFirst() throws Exception {
+        final Bitmap older = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        final Bitmap newer = mPool.acquire(PAGE_WIDTH * 2, PAGE_HEIGHT / 2, mOwner);
+        mPool.acquire(PAGE_WIDTH / 2, PAGE_HEIGHT * 2, mOwner);
+
+        mPool.release(older, RecyclerView.NO_POSITION);
+        mPool.release(newer, RecyclerView.NO_POSITION);
+
+        mPool.acquire(PAGE_WIDTH / 2, PAGE_HEIGHT / 2, mOwner);
+
+        assertEquals(1, mPool.getEvictionCount());
+        assertSame(newer, mPool.acquire(PAGE_WIDTH * 2, PAGE_HEIGHT / 2, mOwner));
+    }
+
+    @Test
+    public void sizeLimitCapsPool() throws Exception {
+        mPool.setSizeLimit(PAGE_BYTES);
+
+        assertEquals(PAGE_BYTES, mPool.getMaxSize());
+        assertNotNull(mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+        assertNull(mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner));
+    }
+
+    @Test
+    public void loweringSizeLimitEvictsIdleBuffers() throws Exception {
+        final Bitmap idle = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(idle, 0);
+
+        mPool.setSizeLimit(PAGE_BYTES);
+
+        assertEquals(1, mPool.getEvictionCount());
+        assertEquals(PAGE_BYTES, mPool.getSize());
+    }
+
+    @Test
+    public void moderateTrimKeepsBuffers() throws Exception {
+        final Bitmap idle = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(idle, 0);
+
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE, false);
+
+        assertEquals(PAGE_BYTES, mPool.getSize());
+        assertEquals(0, mPool.getEvictionCount());
+    }
+
+    @Test
+    public void lowTrimEvictsOnlyIdleBuffers() throws Exception {
+        final Bitmap idle = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(idle, 0);
+
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW, false);
+
+        assertEquals(PAGE_BYTES, mPool.getSize());
+        assertEquals(1, mPool.getEvictionCount());
+        assertTrue(mOwner.evicted.isEmpty());
+    }
+
+    @Test
+    public void hiddenTrimWhileInUseEvictsOnlyIdleBuffers() throws Exception {
+        final Bitmap idle = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(idle, 0);
+
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, true);
+
+        assertEquals(PAGE_BYTES, mPool.getSize());
+        assertTrue(mOwner.evicted.isEmpty());
+    }
+
+    @Test
+    public void hiddenTrimEvictsEveryBuffer() throws Exception {
+        final Bitmap idle = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        final Bitmap inUse = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.release(idle, 0);
+
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, false);
+
+        assertEquals(0, mPool.getSize());
+        assertEquals(2, mPool.getEvictionCount());
+        assertEquals(1, mOwner.evicted.size());
+        assertSame(inUse, mOwner.evicted.get(0));
+    }
+
+    @Test
+    public void bufferOfPreviousPageSizeIsNotPooledAgain() throws Exception {
+        final Bitmap bitmap = mPool.acquire(PAGE_WIDTH, PAGE_HEIGHT, mOwner);
+        mPool.setPageSize(PAGE_WIDTH * 2, PAGE_HEIGHT);
+        mPool.release(bitmap, 0);
+
+        assertEquals(0, mPool.getSize());
+    }
+
+    private static class TestOwner implements PageBitmapPool.Owner {
+        final List<Bitmap> evicted = new ArrayList<>();
+
+        @Override
+        public void onBitmapEvicted(Bitmap bitmap) {
+            evicted.add(bitmap);
+        }
+    }
+}
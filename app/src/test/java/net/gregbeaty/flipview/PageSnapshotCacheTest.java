@@ -0,0 +1,79 @@
+package net.gregbeaty.flipview;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class PageSnapshotCacheTest {
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 80;
+
+    private PageBitmapPool mPool;
+    private PageSnapshotCache mSnapshots;
+    private View mView;
+
+    @Before
+    public void setUp() throws Exception {
+        mPool = new PageBitmapPool();
+        mPool.setPageSize(WIDTH, HEIGHT);
+        mSnapshots = new PageSnapshotCache(mPool);
+
+        mView = new View(RuntimeEnvironment.application);
+        mView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void snapshotIsCapturedOnce() throws Exception {
+        final Bitmap snapshot = mSnapshots.get(mView, 3, 3);
+        assertNotNull(snapshot);
+
+        assertSame(snapshot, mSnapshots.get(mView, 3, 3));
+        assertEquals(1, mPool.getMissCount());
+    }
+
+    @Test
+    public void changedPageIsRecapturedIntoSameBitmap() throws Exception {
+        final Bitmap snapshot = mSnapshots.get(mView, 3, 3);
+
+        mSnapshots.invalidate(3, 1);
+
+        assertSame(snapshot, mSnapshots.get(mView, 3, 3));
+        assertEquals(1, mPool.getMissCount());
+        assertEquals(0, mPool.getHitCount());
+    }
+
+    @Test
+    public void changeOfOtherPageKeepsSnapshot() throws Exception {
+        final Bitmap snapshot = mSnapshots.get(mView, 3, 3);
+
+        mSnapshots.invalidate(4, 2);
+
+        assertSame(snapshot, mSnapshots.get(mView, 3, 3));
+    }
+
+    @Test
+    public void clearedSnapshotIsCapturedAgain() throws Exception {
+        final Bitmap snapshot = mSnapshots.get(mView, 3, 3);
+
+        mSnapshots.clear();
+
+        final Bitmap recaptured = mSnapshots.get(mView, 3, 3);
+        assertNotNull(recaptured);
+        assertSame(snapshot, recaptured);
+        assertEquals(1, mPool.getHitCount());
+    }
+}
@@ -0,0 +1,31 @@
+package net.gregbeaty.flipview;
+
+import android.view.Choreographer;
+
+/**
+ * Holds the frame callback posted last until a test runs the frame with a time of its choosing.
+ */
+class TestFrameScheduler implements FlipSettleAnimator.FrameScheduler {
+    Choreographer.FrameCallback pending;
+
+    @Override
+    public void postFrameCallback(Choreographer.FrameCallback callback) {
+        pending = callback;
+    }
+
+    @Override
+    public void removeFrameCallback(Choreographer.FrameCallback callback) {
+        if (pending == callback) {
+            pending = null;
+        }
+    }
+
+    void runFrame(long frameTimeNanos) {
+        final Choreographer.FrameCallback callback = pending;
+        pending = null;
+
+        if (callback != null) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+}
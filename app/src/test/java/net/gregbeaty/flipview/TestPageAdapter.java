@@ -0,0 +1,84 @@
+package net.gregbeaty.flipview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Empty pages, full size unless set otherwise, with an item count that tests change through the
+ * notify methods. The positions of binds are recorded, and the payloads of the last one kept.
+ */
+class TestPageAdapter extends RecyclerView.Adapter<TestPageAdapter.ViewHolder> {
+    private int mItemCount;
+    private int mPageWidth = ViewGroup.LayoutParams.MATCH_PARENT;
+    private int mPageHeight = ViewGroup.LayoutParams.MATCH_PARENT;
+    final List<Integer> boundPositions = new ArrayList<>();
+    final List<Object> lastPayloads = new ArrayList<>();
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        ViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    TestPageAdapter(int itemCount) {
+        mItemCount = itemCount;
+    }
+
+    void insertPages(int positionStart, int itemCount) {
+        mItemCount += itemCount;
+        notifyItemRangeInserted(positionStart, itemCount);
+    }
+
+    void removePages(int positionStart, int itemCount) {
+        mItemCount -= itemCount;
+        notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    /**
+     * Sets the layout size pages get when they are bound.
+     */
+    void setPageSize(int width, int height) {
+        mPageWidth = width;
+        mPageHeight = height;
+    }
+
+    void changePage(int position, Object payload) {
+        notifyItemChanged(position, payload);
+    }
+
+    void movePage(int from, int to) {
+        notifyItemMoved(from, to);
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        final FrameLayout page = new FrameLayout(parent.getContext());
+        page.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        return new ViewHolder(page);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position, List<Object> payloads) {
+        boundPositions.add(position);
+        lastPayloads.clear();
+        lastPayloads.addAll(payloads);
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        final ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+        params.width = mPageWidth;
+        params.height = mPageHeight;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+}
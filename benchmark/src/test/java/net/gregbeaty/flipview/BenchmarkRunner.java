@@ -0,0 +1,179 @@
+package net.gregbeaty.flipview;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Minimal benchmark harness for the JVM-hosted smoke benchmarks. Each benchmark is warmed up, then
+ * run in fixed-size batches, and the per-operation time of every batch is recorded. Results are
+ * written as JSON to the directory given by the {@code flipview.benchmark.outputDir} system
+ * property.
+ * <p>
+ * When {@code flipview.benchmark.baselineDir} points to the results of an earlier run on the same
+ * machine, each benchmark fails if its median time regressed by more than
+ * {@link #MAX_REGRESSION} against that baseline. Without a baseline only the measurement itself
+ * is checked.
+ */
+final class BenchmarkRunner {
+    private static final String OUTPUT_DIR_PROPERTY = "flipview.benchmark.outputDir";
+    private static final String BASELINE_DIR_PROPERTY = "flipview.benchmark.baselineDir";
+    private static final double MAX_REGRESSION = 1.5;
+    private static final Pattern BASELINE_RESULT = Pattern.compile(
+            "\\{\"name\": \"([^\"]+)\", \"minNanosPerOp\": [0-9.]+, \"medianNanosPerOp\": ([0-9.]+)");
+    private static final int WARMUP_BATCHES = 20;
+    private static final int MEASURED_BATCHES = 30;
+    private static final int OPERATIONS_PER_BATCH = 500;
+
+    private final String mSuiteName;
+    private final List<Result> mResults = new ArrayList<>();
+    private Map<String, Double> mBaselineMedians;
+
+    interface Operation {
+        void run(int iteration);
+    }
+
+    BenchmarkRunner(String suiteName) {
+        mSuiteName = suiteName;
+    }
+
+    Result measure(String name, Operation operation) {
+        int iteration = 0;
+
+        for (int batch = 0; batch < WARMUP_BATCHES; batch++) {
+            for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+                operation.run(iteration++);
+            }
+        }
+
+        final double[] batchNanosPerOperation = new double[MEASURED_BATCHES];
+        for (int batch = 0; batch < MEASURED_BATCHES; batch++) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+                operation.run(iteration++);
+            }
+
+            batchNanosPerOperation[batch] = (System.nanoTime() - start) / (double) OPERATIONS_PER_BATCH;
+        }
+
+        Arrays.sort(batchNanosPerOperation);
+
+        final Result result = new Result(name,
+                batchNanosPerOperation[0],
+                batchNanosPerOperation[MEASURED_BATCHES / 2],
+                batchNanosPerOperation[(int) Math.ceil(MEASURED_BATCHES * 0.9) - 1]);
+        mResults.add(result);
+        return result;
+    }
+
+    /**
+     * Checks that the benchmark measured something and, if there is a baseline for it, that its
+     * median is within {@link #MAX_REGRESSION} of the baseline median.
+     */
+    void assertWithinBaseline(Result result) throws IOException {
+        assertTrue(result.name + " measured no time", result.medianNanosPerOperation > 0);
+
+        final Double baselineMedian = getBaselineMedians().get(result.name);
+        if (baselineMedian == null) {
+            return;
+        }
+
+        assertTrue(String.format(Locale.US, "%s regressed: median %.1f ns/op, baseline %.1f ns/op",
+                result.name, result.medianNanosPerOperation, baselineMedian),
+                result.medianNanosPerOperation <= baselineMedian * MAX_REGRESSION);
+    }
+
+    private Map<String, Double> getBaselineMedians() throws IOException {
+        if (mBaselineMedians != null) {
+            return mBaselineMedians;
+        }
+
+        mBaselineMedians = new HashMap<>();
+
+        final String baselineDir = System.getProperty(BASELINE_DIR_PROPERTY);
+        if (baselineDir == null) {
+            return mBaselineMedians;
+        }
+
+        final File baseline = new File(baselineDir, mSuiteName + ".json");
+        if (!baseline.isFile()) {
+            return mBaselineMedians;
+        }
+
+        final BufferedReader reader = new BufferedReader(new FileReader(baseline));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final Matcher matcher = BASELINE_RESULT.matcher(line);
+                if (matcher.find()) {
+                    mBaselineMedians.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return mBaselineMedians;
+    }
+
+    void writeReport() throws IOException {
+        final String outputDir = System.getProperty(OUTPUT_DIR_PROPERTY);
+        if (outputDir == null) {
+            return;
+        }
+
+        final File directory = new File(outputDir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create benchmark output directory " + directory);
+        }
+
+        final Writer writer = new FileWriter(new File(directory, mSuiteName + ".json"));
+        try {
+            writer.write("{\n");
+            writer.write(String.format(Locale.US, "  \"suite\": \"%s\",\n", mSuiteName));
+            writer.write(String.format(Locale.US, "  \"operationsPerBatch\": %d,\n", OPERATIONS_PER_BATCH));
+            writer.write(String.format(Locale.US, "  \"batches\": %d,\n", MEASURED_BATCHES));
+            writer.write("  \"benchmarks\": [\n");
+
+            for (int i = 0; i < mResults.size(); i++) {
+                final Result result = mResults.get(i);
+                writer.write(String.format(Locale.US,
+                        "    {\"name\": \"%s\", \"minNanosPerOp\": %.1f, \"medianNanosPerOp\": %.1f, \"p90NanosPerOp\": %.1f}%s\n",
+                        result.name, result.minNanosPerOperation, result.medianNanosPerOperation, result.p90NanosPerOperation,
+                        i < mResults.size() - 1 ? "," : ""));
+            }
+
+            writer.write("  ]\n");
+            writer.write("}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    static final class Result {
+        final String name;
+        final double minNanosPerOperation;
+        final double medianNanosPerOperation;
+        final double p90NanosPerOperation;
+
+        Result(String name, double minNanosPerOperation, double medianNanosPerOperation, double p90NanosPerOperation) {
+            this.name = name;
+            this.minNanosPerOperation = minNanosPerOperation;
+            this.medianNanosPerOperation = medianNanosPerOperation;
+            this.p90NanosPerOperation = p90NanosPerOperation;
+        }
+    }
+}
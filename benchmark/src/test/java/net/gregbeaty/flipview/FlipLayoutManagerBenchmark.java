@@ -0,0 +1,139 @@
+package net.gregbeaty.flipview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import net.gregbeaty.flipview.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Smoke benchmarks of the scroll and layout paths of {@link FlipLayoutManager}. They run on
+ * Robolectric, so views and RecyclerView are real but the framework underneath is shadowed; the
+ * numbers only catch regressions against a baseline recorded on the same machine and say nothing
+ * about frame times on a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class FlipLayoutManagerBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int ITEM_COUNT = 1000;
+
+    private static final BenchmarkRunner sRunner = new BenchmarkRunner("flip-layout-manager");
+    private static long sSink;
+
+    private FlipView mFlipView;
+    private FlipLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() throws Exception {
+        mFlipView = new FlipView(RuntimeEnvironment.application);
+        mLayoutManager = new FlipLayoutManager(FlipLayoutManager.VERTICAL);
+        mFlipView.setLayoutManager(mLayoutManager);
+        mFlipView.setAdapter(new PageAdapter());
+        layout();
+
+        mLayoutManager.scrollToPosition(ITEM_COUNT / 2);
+        layout();
+    }
+
+    @AfterClass
+    public static void writeReport() throws Exception {
+        sRunner.writeReport();
+    }
+
+    @Test
+    public void scrollWithinPage() throws Exception {
+        mFlipView.scrollBy(0, 45);
+
+        final BenchmarkRunner.Result result = sRunner.measure("scrollBy.withinPage", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                mFlipView.scrollBy(0, iteration % 2 == 0 ? 7 : -7);
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+
+    @Test
+    public void scrollAcrossPages() throws Exception {
+        mFlipView.scrollBy(0, 45);
+
+        final BenchmarkRunner.Result result = sRunner.measure("scrollBy.acrossPages", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                mFlipView.scrollBy(0, iteration % 2 == 0 ? FlipLayoutManager.DISTANCE_PER_POSITION : -FlipLayoutManager.DISTANCE_PER_POSITION);
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+
+    @Test
+    public void layoutChildren() throws Exception {
+        final BenchmarkRunner.Result result = sRunner.measure("onLayoutChildren", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                mFlipView.requestLayout();
+                layout();
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+
+    @Test
+    public void angle() throws Exception {
+        mFlipView.scrollBy(0, 45);
+
+        final BenchmarkRunner.Result result = sRunner.measure("getAngle", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                sSink += mLayoutManager.getAngle();
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+
+    private void layout() {
+        mFlipView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mFlipView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static class PageAdapter extends RecyclerView.Adapter<PageAdapter.ViewHolder> {
+        static class ViewHolder extends RecyclerView.ViewHolder {
+            ViewHolder(View itemView) {
+                super(itemView);
+            }
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final FrameLayout page = new FrameLayout(parent.getContext());
+            page.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            return new ViewHolder(page);
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            holder.itemView.setBackgroundColor(0xff000000 | position);
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
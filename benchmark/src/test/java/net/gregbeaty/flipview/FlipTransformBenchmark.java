@@ -0,0 +1,63 @@
+package net.gregbeaty.flipview;
+
+import net.gregbeaty.flipview.benchmark.BuildConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Smoke benchmarks of {@link FlipTransformTable}. On Robolectric, {@link android.graphics.Camera}
+ * and {@link android.graphics.Matrix} are shadows, so these time the table's own bookkeeping rather
+ * than the native transform math, and only catch regressions against a baseline recorded on the
+ * same machine.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class FlipTransformBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int ANGLE_COUNT = FlipLayoutManager.DISTANCE_PER_POSITION + 1;
+
+    private static final BenchmarkRunner sRunner = new BenchmarkRunner("flip-transform");
+    private static long sSink;
+
+    private final FlipTransformTable mTable = new FlipTransformTable(180, 130, 100);
+
+    @AfterClass
+    public static void writeReport() throws Exception {
+        sRunner.writeReport();
+    }
+
+    @Test
+    public void buildTable() throws Exception {
+        final BenchmarkRunner.Result result = sRunner.measure("transformTable.build", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                mTable.build(WIDTH + iteration % 2, HEIGHT, true);
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+
+    @Test
+    public void lookupPerFrame() throws Exception {
+        mTable.build(WIDTH, HEIGHT, true);
+
+        final BenchmarkRunner.Result result = sRunner.measure("transformTable.lookup", new BenchmarkRunner.Operation() {
+            @Override
+            public void run(int iteration) {
+                final int angle = iteration % ANGLE_COUNT;
+                sSink += mTable.getMatrix(angle).hashCode()
+                        + mTable.getShadowAlpha(angle)
+                        + mTable.getShadeAlpha(angle)
+                        + mTable.getShineAlpha(angle);
+            }
+        });
+
+        sRunner.assertWithinBaseline(result);
+    }
+}